@@ -35,6 +35,11 @@ public abstract class ContentTransferEncoding {
         public OutputStream encode(OutputStream out) {
             return out;
         }
+
+        @Override
+        public long getEncodedLength(long length) {
+            return length;
+        }
     }
 
     /**
@@ -55,6 +60,12 @@ public abstract class ContentTransferEncoding {
         public OutputStream encode(OutputStream out) {
             return new Base64EncodingOutputStream(out);
         }
+
+        @Override
+        public long getEncodedLength(long length) {
+            // Base64EncodingOutputStream doesn't insert line breaks
+            return (length + 2) / 3 * 4;
+        }
     };
 
     private final String name;
@@ -75,4 +86,17 @@ public abstract class ContentTransferEncoding {
      * @return the wrapped output stream
      */
     public abstract OutputStream encode(OutputStream out);
+
+    /**
+     * Compute the length of the encoded form of content with the given length. The default
+     * implementation returns -1, i.e. subclasses need to override this method if the encoded
+     * length can be predicted.
+     * 
+     * @param length the length of the unencoded content
+     * @return the length of the encoded content, or -1 if it can't be determined without encoding
+     *         the content
+     */
+    public long getEncodedLength(long length) {
+        return -1;
+    }
 }
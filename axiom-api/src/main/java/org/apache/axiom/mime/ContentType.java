@@ -179,7 +179,8 @@ public final class ContentType {
     }
 
     /**
-     * Constructor that parses a {@code Content-Type} header value.
+     * Constructor that parses a {@code Content-Type} header value. Consider using
+     * {@link #parse(String)} instead, which avoids parsing frequently used values repeatedly.
      * 
      * @param type
      *            the value of the {@code Content-Type} header conforming to RFC 2045
@@ -200,13 +201,51 @@ public final class ContentType {
                 // This is not allowed by RFC 2045, but we are lenient.
                 break;
             }
-            parameters.add(name);
+            parameters.add(internParameterName(name));
             tokenizer.require('=');
             parameters.add(tokenizer.requireTokenOrQuotedString());
         }
         this.parameters = parameters.toArray(new String[parameters.size()]);
     }
     
+    /**
+     * Parse a {@code Content-Type} header value. This method maintains a bounded cache of parsed
+     * values, so that parsing the same value again (which is typical for the content types of
+     * MIME parts) only requires a lookup. This is possible because {@link ContentType} instances
+     * are immutable. Values with a {@code boundary} parameter are not cached because they are
+     * usually unique.
+     * 
+     * @param type
+     *            the value of the {@code Content-Type} header conforming to RFC 2045
+     * @return the parsed content type; this may be a shared instance
+     * @throws ParseException
+     *             if the value is invalid and could not be parsed
+     */
+    public static ContentType parse(String type) throws ParseException {
+        return ContentTypeCache.INSTANCE.get(type);
+    }
+
+    /**
+     * Replace frequently used parameter names by the corresponding string literal, so that cached
+     * instances share them and {@link #getParameter(String)} can succeed with an identity
+     * comparison.
+     * 
+     * @param name
+     *            the parameter name as parsed
+     * @return the parameter name, or an equal string literal
+     */
+    private static String internParameterName(String name) {
+        switch (name) {
+            case "boundary": return "boundary";
+            case "type": return "type";
+            case "start": return "start";
+            case "start-info": return "start-info";
+            case "charset": return "charset";
+            case "action": return "action";
+            default: return name;
+        }
+    }
+    
     ContentType(MediaType mediaType, Map<String,String> parameters) {
         this.mediaType = mediaType;
         this.parameters = new String[parameters.size()*2];
@@ -254,7 +293,8 @@ public final class ContentType {
      */
     public String getParameter(String name) {
         for (int i=0; i<parameters.length; i+=2) {
-            if (name.equalsIgnoreCase(parameters[i])) {
+            String parameterName = parameters[i];
+            if (parameterName == name || name.equalsIgnoreCase(parameterName)) {
                 return parameters[i+1];
             }
         }
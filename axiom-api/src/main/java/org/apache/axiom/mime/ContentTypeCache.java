@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of parsed {@link ContentType} instances, keyed by the header value. Lookups are
+ * lock free. When the cache is full, an entry is evicted using the CLOCK (second chance)
+ * algorithm: entries are kept in a ring, a lookup only sets a flag on the entry and eviction
+ * advances a hand over the ring, clearing the flags until it finds an entry that has not been
+ * used since the hand last passed it. This approximates LRU at constant amortized cost.
+ * <p>
+ * Values with a {@code boundary} parameter (i.e. the content types of multipart messages) are
+ * not cached: they are typically unique, and caching them would only evict useful entries.
+ */
+final class ContentTypeCache {
+    private static final class Entry {
+        final String value;
+        final ContentType contentType;
+        volatile boolean referenced;
+
+        Entry(String value, ContentType contentType) {
+            this.value = value;
+            this.contentType = contentType;
+        }
+    }
+
+    /**
+     * The maximum length of the values that are cached. Longer values are parsed without being
+     * cached.
+     */
+    private static final int MAX_VALUE_LENGTH = 512;
+
+    static final ContentTypeCache INSTANCE = new ContentTypeCache(256);
+
+    private final Map<String,Entry> entries = new ConcurrentHashMap<String,Entry>();
+
+    /**
+     * The entries in insertion order. Guarded by the lock on this instance.
+     */
+    private final Entry[] ring;
+
+    /**
+     * The position of the clock hand in {@link #ring}. Guarded by the lock on this instance.
+     */
+    private int hand;
+
+    ContentTypeCache(int maxSize) {
+        ring = new Entry[maxSize];
+    }
+
+    ContentType get(String value) throws ParseException {
+        Entry entry = entries.get(value);
+        if (entry != null) {
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.contentType;
+        }
+        ContentType contentType = new ContentType(value);
+        if (value.length() <= MAX_VALUE_LENGTH && contentType.getParameter("boundary") == null) {
+            add(new Entry(value, contentType));
+        }
+        return contentType;
+    }
+
+    private synchronized void add(Entry entry) {
+        if (entries.containsKey(entry.value)) {
+            // Another thread added the same value concurrently
+            return;
+        }
+        // Give referenced entries a second chance. Bound the number of iterations in case other
+        // threads keep setting the flags; the entry at the original position is then evicted.
+        for (int i=0; i<ring.length; i++) {
+            Entry candidate = ring[hand];
+            if (candidate == null || !candidate.referenced) {
+                break;
+            }
+            candidate.referenced = false;
+            hand = (hand+1) % ring.length;
+        }
+        Entry evicted = ring[hand];
+        if (evicted != null) {
+            entries.remove(evicted.value);
+        }
+        ring[hand] = entry;
+        entries.put(entry.value, entry);
+        hand = (hand+1) % ring.length;
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.util.io.IOUtils;
+
+/**
+ * {@link Blob} that decodes the content of another blob on the fly. This is used for parts with
+ * a {@code Content-Transfer-Encoding} when the multipart body is accessed randomly, so that they
+ * don't need to be buffered. Note that the content is decoded again each time it is read.
+ */
+final class DecodingBlob implements Blob {
+    private final Blob encoded;
+    private final String contentTransferEncoding;
+
+    DecodingBlob(Blob encoded, String contentTransferEncoding) {
+        this.encoded = encoded;
+        this.contentTransferEncoding = contentTransferEncoding;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return NativeMultipartParser.decode(encoded.getInputStream(), contentTransferEncoding);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        try (InputStream in = getInputStream()) {
+            IOUtils.copy(in, out, -1);
+        } catch (StreamCopyException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.READ, ex);
+        }
+    }
+
+    /**
+     * Get the size of the blob. The size of the decoded content is only known after decoding the
+     * entire part, so this method always returns -1.
+     */
+    @Override
+    public long getSize() {
+        return -1;
+    }
+}
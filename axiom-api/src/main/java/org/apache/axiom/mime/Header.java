@@ -37,6 +37,11 @@ public final class Header {
      */
     public static final String CONTENT_TRANSFER_ENCODING = "Content-Transfer-Encoding";
 
+    /**
+     * The name of the {@code Content-Length} header.
+     */
+    public static final String CONTENT_LENGTH = "Content-Length";
+
     private final String name;
     private final String value;
 
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An ordered collection of MIME headers with case-insensitive lookup by name. Lookups of the
+ * well-known headers defined by {@link Header} ({@code Content-Type}, {@code Content-ID},
+ * {@code Content-Transfer-Encoding} and {@code Content-Length}) use a fixed slot per header and
+ * don't require any string manipulation when the name is given by one of the constants in
+ * {@link Header}. Lookups of other headers use a hash table keyed by the lower case name.
+ * <p>
+ * Header names are stored as given; in particular their case is preserved.
+ */
+final class HeaderTable {
+    private static final String[] WELL_KNOWN_NAMES = {
+            Header.CONTENT_TYPE,
+            Header.CONTENT_ID,
+            Header.CONTENT_TRANSFER_ENCODING,
+            Header.CONTENT_LENGTH };
+
+    private static final byte[][] ENCODED_WELL_KNOWN_NAMES;
+
+    static {
+        ENCODED_WELL_KNOWN_NAMES = new byte[WELL_KNOWN_NAMES.length][];
+        for (int i=0; i<WELL_KNOWN_NAMES.length; i++) {
+            ENCODED_WELL_KNOWN_NAMES[i] = WELL_KNOWN_NAMES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final List<Header> headers = new ArrayList<Header>();
+
+    /**
+     * The first header for each of the well-known names, or {@code null} if there is no such
+     * header.
+     */
+    private final Header[] wellKnownHeaders = new Header[WELL_KNOWN_NAMES.length];
+
+    /**
+     * The first header for each of the other names, keyed by the lower case name. This is created
+     * lazily.
+     */
+    private Map<String,Header> otherHeaders;
+
+    /**
+     * Get the index of a well-known header name.
+     *
+     * @param name
+     *            the header name
+     * @return the index in {@link #WELL_KNOWN_NAMES}, or -1 if the name is not well-known
+     */
+    private static int getWellKnownIndex(String name) {
+        for (int i=0; i<WELL_KNOWN_NAMES.length; i++) {
+            if (name == WELL_KNOWN_NAMES[i]) {
+                return i;
+            }
+        }
+        for (int i=0; i<WELL_KNOWN_NAMES.length; i++) {
+            String wellKnownName = WELL_KNOWN_NAMES[i];
+            if (name.length() == wellKnownName.length() && name.equalsIgnoreCase(wellKnownName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the pre-encoded (ASCII) form of a well-known header name.
+     *
+     * @param name
+     *            the header name
+     * @return the encoded name, or {@code null} if the name is not well-known or doesn't have the
+     *         same case as the corresponding constant in {@link Header}
+     */
+    static byte[] getEncodedName(String name) {
+        int index = getWellKnownIndex(name);
+        return index == -1 || !name.equals(WELL_KNOWN_NAMES[index]) ? null : ENCODED_WELL_KNOWN_NAMES[index];
+    }
+
+    /**
+     * Create a header name from a sequence of ASCII bytes. If the bytes match one of the
+     * well-known header names exactly, the corresponding constant is returned, so that no new
+     * string needs to be allocated and subsequent lookups can use an identity comparison.
+     *
+     * @param buffer
+     *            the buffer containing the name
+     * @param off
+     *            the offset of the name in the buffer
+     * @param len
+     *            the length of the name
+     * @return the header name
+     */
+    static String createName(byte[] buffer, int off, int len) {
+        outer: for (int i=0; i<ENCODED_WELL_KNOWN_NAMES.length; i++) {
+            byte[] encodedName = ENCODED_WELL_KNOWN_NAMES[i];
+            if (encodedName.length == len) {
+                for (int j=0; j<len; j++) {
+                    if (buffer[off+j] != encodedName[j]) {
+                        continue outer;
+                    }
+                }
+                return WELL_KNOWN_NAMES[i];
+            }
+        }
+        return new String(buffer, off, len, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Add a header.
+     *
+     * @param header
+     *            the header to add
+     */
+    void add(Header header) {
+        headers.add(header);
+        String name = header.getName();
+        int index = getWellKnownIndex(name);
+        if (index != -1) {
+            if (wellKnownHeaders[index] == null) {
+                wellKnownHeaders[index] = header;
+            }
+        } else {
+            if (otherHeaders == null) {
+                otherHeaders = new HashMap<String,Header>();
+            }
+            otherHeaders.putIfAbsent(name.toLowerCase(Locale.ENGLISH), header);
+        }
+    }
+
+    /**
+     * Add a header.
+     *
+     * @param name
+     *            the name of the header
+     * @param value
+     *            the value of the header
+     */
+    void add(String name, String value) {
+        add(new Header(name, value));
+    }
+
+    /**
+     * Get the first header with the given name.
+     *
+     * @param name
+     *            the header name (case insensitive)
+     * @return the header, or {@code null} if there is no header with the given name
+     */
+    Header getFirst(String name) {
+        int index = getWellKnownIndex(name);
+        if (index != -1) {
+            return wellKnownHeaders[index];
+        } else if (otherHeaders == null) {
+            return null;
+        } else {
+            return otherHeaders.get(name.toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    /**
+     * Get the value of the first header with the given name.
+     *
+     * @param name
+     *            the header name (case insensitive)
+     * @return the value of the header, or {@code null} if there is no header with the given name
+     */
+    String getValue(String name) {
+        Header header = getFirst(name);
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * Get the number of headers in this table.
+     *
+     * @return the number of headers
+     */
+    int size() {
+        return headers.size();
+    }
+
+    /**
+     * Get the headers in this table, in the order in which they have been added.
+     *
+     * @return an unmodifiable list of headers
+     */
+    List<Header> getHeaders() {
+        return Collections.unmodifiableList(headers);
+    }
+}
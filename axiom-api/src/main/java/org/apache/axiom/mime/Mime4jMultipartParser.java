@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.stream.EntityState;
+import org.apache.james.mime4j.stream.Field;
+import org.apache.james.mime4j.stream.MimeConfig;
+import org.apache.james.mime4j.stream.MimeTokenStream;
+import org.apache.james.mime4j.stream.RecursionMode;
+
+/**
+ * {@link MultipartParser} implementation that uses Apache James mime4j's {@link MimeTokenStream}.
+ */
+final class Mime4jMultipartParser implements MultipartParser {
+    private static final MimeConfig config = MimeConfig.custom().setStrictParsing(true).build();
+    
+    private final MimeTokenStream parser;
+
+    Mime4jMultipartParser(InputStream inStream, ContentType contentType) {
+        parser = new MimeTokenStream(config);
+        parser.setRecursionMode(RecursionMode.M_NO_RECURSE);
+        parser.parseHeadless(inStream, contentType.toString());
+    }
+
+    @Override
+    public HeaderTable nextPart() throws IOException {
+        try {
+            EntityState state = parser.getState();
+            while (state != EntityState.T_START_BODYPART) {
+                if (state == EntityState.T_END_MULTIPART) {
+                    return null;
+                }
+                state = parser.next();
+            }
+            checkParserState(parser.next(), EntityState.T_START_HEADER);
+            HeaderTable headers = new HeaderTable();
+            while (parser.next() == EntityState.T_FIELD) {
+                Field field = parser.getField();
+                headers.add(field.getName(), field.getBody());
+            }
+            checkParserState(parser.next(), EntityState.T_BODY);
+            return headers;
+        } catch (MimeException ex) {
+            throw new MIMEException(ex);
+        }
+    }
+
+    private static void checkParserState(EntityState state, EntityState expected) throws IllegalStateException {
+        if (expected != state) {
+            throw new IllegalStateException("Internal error: expected parser to be in state "
+                    + expected + ", but got " + state);
+        }
+    }
+
+    @Override
+    public InputStream getDecodedInputStream() {
+        checkParserState(parser.getState(), EntityState.T_BODY);
+        return parser.getDecodedInputStream();
+    }
+}
@@ -20,23 +20,21 @@ package org.apache.axiom.mime;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.text.ParseException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.blob.Blobs;
 import org.apache.axiom.blob.MemoryBlob;
 import org.apache.axiom.blob.WritableBlobFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.james.mime4j.MimeException;
-import org.apache.james.mime4j.stream.EntityState;
-import org.apache.james.mime4j.stream.Field;
-import org.apache.james.mime4j.stream.MimeConfig;
-import org.apache.james.mime4j.stream.MimeTokenStream;
-import org.apache.james.mime4j.stream.RecursionMode;
 
 /**
  * A MIME multipart message read from a stream. This class exposes an API that represents the
@@ -47,6 +45,11 @@ import org.apache.james.mime4j.stream.RecursionMode;
  * an instance of this class or an individual {@link Part} instance may trigger a
  * {@link MIMEException} if there is an I/O error on the stream or a MIME parsing error.
  * <p>
+ * Alternatively, if the message is already available in a file or in memory, it can be accessed
+ * randomly (see {@link Builder#setFileChannel(FileChannel)} and
+ * {@link Builder#setBuffer(ByteBuffer)}). In that case, the parts are indexed in a single scan when
+ * the instance is created, and their content is never copied.
+ * <p>
  * Instances of this class are created using a fluent builder; see {@link #builder()}.
  */
 public final class MultipartBody implements Iterable<Part> {
@@ -56,10 +59,17 @@ public final class MultipartBody implements Iterable<Part> {
 
     public final static class Builder {
         private InputStream inputStream;
+        private ByteBuffer buffer;
+        private FileChannel fileChannel;
         private ContentType contentType;
         private WritableBlobFactory<?> attachmentBlobFactory;
         private PartBlobFactory partBlobFactory;
         private PartCreationListener partCreationListener;
+        private long contentLength = -1;
+        private boolean nativeParser;
+        private boolean trustPartContentLength;
+        private Executor prefetchExecutor;
+        private int maxPrefetchedParts = 4;
         
         Builder() {}
 
@@ -68,6 +78,40 @@ public final class MultipartBody implements Iterable<Part> {
             return this;
         }
 
+        /**
+         * Set a buffer containing the multipart body, i.e. the bytes between its current position
+         * and limit. The body is then accessed randomly: the parts are indexed when the instance
+         * is built and {@link Part#getBlob()} returns a blob that shares the content of the buffer
+         * instead of a copy. This is an alternative to {@link #setInputStream(InputStream)}.
+         * Content with a {@code Content-Transfer-Encoding} is decoded each time it is read.
+         * <p>
+         * The content of the buffer must not be modified as long as the parts are in use.
+         * 
+         * @param buffer
+         *            the buffer, typically a {@link MappedByteBuffer}
+         * @return this builder
+         */
+        public Builder setBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+            return this;
+        }
+
+        /**
+         * Set a file channel for a file containing the multipart body. The file is mapped into
+         * memory when the instance is built and is then accessed as described in
+         * {@link #setBuffer(ByteBuffer)}. This is an alternative to
+         * {@link #setInputStream(InputStream)}. The channel may be closed once the instance has
+         * been built, but the file must not be modified as long as the parts are in use.
+         * 
+         * @param fileChannel
+         *            the file channel; it must be open for reading
+         * @return this builder
+         */
+        public Builder setFileChannel(FileChannel fileChannel) {
+            this.fileChannel = fileChannel;
+            return this;
+        }
+
         public Builder setContentType(ContentType contentType) {
             this.contentType = contentType;
             return this;
@@ -75,7 +119,7 @@ public final class MultipartBody implements Iterable<Part> {
 
         public Builder setContentType(String contentType) {
             try {
-                this.contentType = new ContentType(contentType);
+                this.contentType = ContentType.parse(contentType);
             } catch (ParseException ex) {
                 throw new MIMEException(ex);
             }
@@ -97,30 +141,169 @@ public final class MultipartBody implements Iterable<Part> {
             return this;
         }
 
+        /**
+         * Set the length of the multipart body, if known (e.g. from the {@code Content-Length}
+         * header of an HTTP request). This is used as an upper bound for the size of parts that
+         * don't have a {@code Content-Length} header, and passed as a size hint to
+         * {@link WritableBlobFactory#createBlob(long, long)} when buffering them.
+         * 
+         * @param contentLength
+         *            the length of the multipart body in bytes, or -1 if unknown
+         * @return this builder
+         */
+        public Builder setContentLength(long contentLength) {
+            this.contentLength = contentLength;
+            return this;
+        }
+
+        /**
+         * Specify whether the built-in multipart parser should be used instead of Apache James
+         * mime4j. The built-in parser locates boundaries using the Boyer-Moore-Horspool algorithm
+         * over a large read buffer and parses part headers in place, which significantly reduces
+         * the CPU cost of processing large MIME parts (e.g. MTOM attachments). The default is to
+         * use mime4j.
+         * 
+         * @param nativeParser
+         *            {@code true} to use the built-in parser, {@code false} to use mime4j
+         * @return this builder
+         */
+        public Builder setNativeParser(boolean nativeParser) {
+            this.nativeParser = nativeParser;
+            return this;
+        }
+
+        /**
+         * Specify whether the {@code Content-Length} header of individual parts should be trusted.
+         * If enabled, the content of a part with a (valid) {@code Content-Length} header is copied
+         * in bulk without searching it for the boundary, and the parser only checks that the
+         * declared number of bytes is followed by the boundary, failing with a
+         * {@link MIMEException} otherwise. Parts without that header are processed as usual.
+         * <p>
+         * This only makes sense if the headers are known to be correct, e.g. because the message
+         * was produced by a known implementation. It requires the built-in parser (see
+         * {@link #setNativeParser(boolean)}) and is disabled by default.
+         * 
+         * @param trustPartContentLength
+         *            {@code true} to use the {@code Content-Length} header of parts to locate the
+         *            end of their content, {@code false} to always search for the boundary
+         * @return this builder
+         */
+        public Builder setTrustPartContentLength(boolean trustPartContentLength) {
+            this.trustPartContentLength = trustPartContentLength;
+            return this;
+        }
+
+        /**
+         * Enable pipelined processing. If an executor is set, a background task reads ahead and
+         * buffers parts while the application processes the preceding parts (typically the root
+         * part), so that attachment I/O is no longer serialized behind the processing of the root
+         * part. Read-ahead is bounded by {@link #setMaxPrefetchedParts(int)}. If the application
+         * consumes a part in streaming mode (see {@link Part#getInputStream(boolean)}), the
+         * background task pauses until the stream has been consumed or closed.
+         * <p>
+         * Note that in this mode the {@link PartCreationListener} may be invoked by the executor
+         * thread.
+         * 
+         * @param prefetchExecutor
+         *            the executor used to run the background task, or {@code null} to disable
+         *            prefetching (which is the default)
+         * @return this builder
+         */
+        public Builder setPrefetchExecutor(Executor prefetchExecutor) {
+            this.prefetchExecutor = prefetchExecutor;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of parts that may be prefetched ahead of the application, i.e.
+         * parts that have been read by the background task but that have not been requested by the
+         * application yet. The default is 4. This is only relevant if an executor has been set
+         * with {@link #setPrefetchExecutor(Executor)}.
+         * 
+         * @param maxPrefetchedParts
+         *            the maximum number of prefetched parts
+         * @return this builder
+         */
+        public Builder setMaxPrefetchedParts(int maxPrefetchedParts) {
+            if (maxPrefetchedParts <= 0) {
+                throw new IllegalArgumentException("maxPrefetchedParts must be positive");
+            }
+            this.maxPrefetchedParts = maxPrefetchedParts;
+            return this;
+        }
+
         public MultipartBody build() {
-            if (inputStream == null) {
-                throw new IllegalArgumentException("inputStream is mandatory");
+            int sources = (inputStream == null ? 0 : 1) + (buffer == null ? 0 : 1)
+                    + (fileChannel == null ? 0 : 1);
+            if (sources == 0) {
+                throw new IllegalArgumentException("inputStream, buffer or fileChannel is mandatory");
+            }
+            if (sources > 1) {
+                throw new IllegalArgumentException(
+                        "Only one of inputStream, buffer and fileChannel may be set");
             }
             if (contentType == null) {
                 throw new IllegalArgumentException("contentType is mandatory");
             }
-            return new MultipartBody(
+            if (trustPartContentLength && inputStream != null && !nativeParser) {
+                throw new IllegalArgumentException(
+                        "trustPartContentLength requires the built-in parser");
+            }
+            Blob content;
+            if (buffer != null) {
+                content = Blobs.createBlob(buffer);
+            } else if (fileChannel != null) {
+                content = map(fileChannel);
+            } else {
+                content = null;
+            }
+            MultipartBody body = new MultipartBody(
                     inputStream,
+                    content,
                     contentType,
                     attachmentBlobFactory == null ? MemoryBlob.FACTORY : attachmentBlobFactory,
                     partBlobFactory == null ? PartBlobFactory.DEFAULT : partBlobFactory,
-                    partCreationListener);
+                    partCreationListener,
+                    contentLength,
+                    nativeParser,
+                    trustPartContentLength,
+                    prefetchExecutor,
+                    maxPrefetchedParts);
+            // Only start prefetching once the instance is fully constructed
+            body.startPrefetch();
+            return body;
+        }
+
+        /**
+         * Map a file into memory. Files larger than 2GB are mapped as a sequence of regions.
+         * 
+         * @param fileChannel
+         *            the file channel
+         * @return a blob representing the mapped content of the file
+         */
+        private static Blob map(FileChannel fileChannel) {
+            try {
+                long size = fileChannel.size();
+                int count = (int)((size + Integer.MAX_VALUE - 1) / Integer.MAX_VALUE);
+                MappedByteBuffer[] regions = new MappedByteBuffer[count];
+                for (int i=0; i<count; i++) {
+                    long position = (long)i * Integer.MAX_VALUE;
+                    regions[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(Integer.MAX_VALUE, size - position));
+                }
+                return Blobs.createBlob(regions);
+            } catch (IOException ex) {
+                throw new MIMEException(ex);
+            }
         }
     }
 
     private static final Log log = LogFactory.getLog(MultipartBody.class);
     
-    private static final MimeConfig config = MimeConfig.custom().setStrictParsing(true).build();
-    
     /** <code>ContentType</code> of the MIME message */
     private final ContentType contentType;
     private final String rootPartContentID;
-    private final MimeTokenStream parser;
+    private final MultipartParser parser;
     
     /**
      * Stores the already parsed MIME parts by Content IDs.
@@ -140,31 +323,71 @@ public final class MultipartBody implements Iterable<Part> {
     private final WritableBlobFactory<?> attachmentBlobFactory;
     private final PartBlobFactory partBlobFactory;
     private final PartCreationListener partCreationListener;
+    private final long contentLength;
+    
+    private final Executor prefetchExecutor;
+    private final int maxPrefetchedParts;
     
-    MultipartBody(InputStream inStream, ContentType contentType,
+    /**
+     * Indicates whether a prefetch task has been submitted to the executor and has not started
+     * yet.
+     */
+    private boolean prefetchScheduled;
+    
+    /**
+     * Indicates whether the prefetch task is reading from the parser. It does so without holding
+     * the lock; other threads must call {@link #awaitPrefetch(PartImpl)} before accessing the
+     * parser or the state of the current part.
+     */
+    private boolean prefetching;
+    
+    /**
+     * The number of parts created by the prefetch task that have not been requested by the
+     * application yet.
+     */
+    private int prefetchedParts;
+    
+    /**
+     * Indicates whether the end of the multipart body has been reached.
+     */
+    private boolean complete;
+    
+    /**
+     * The error encountered by the prefetch task, if any. It is reported to the application the
+     * next time it attempts to read from the stream.
+     */
+    private RuntimeException prefetchFailure;
+    
+    MultipartBody(InputStream inStream, Blob content, ContentType contentType,
             WritableBlobFactory<?> attachmentBlobFactory,
             PartBlobFactory partBlobFactory,
-            PartCreationListener partCreationListener) {
+            PartCreationListener partCreationListener,
+            long contentLength,
+            boolean nativeParser,
+            boolean trustPartContentLength,
+            Executor prefetchExecutor,
+            int maxPrefetchedParts) {
         this.attachmentBlobFactory = attachmentBlobFactory;
         this.partBlobFactory = partBlobFactory;
         this.partCreationListener = partCreationListener;
+        this.contentLength = contentLength;
         this.contentType = contentType;
 
         String start = contentType.getParameter("start");
         rootPartContentID = start == null ? null : normalizeContentID(start);
 
-        parser = new MimeTokenStream(config);
-        parser.setRecursionMode(RecursionMode.M_NO_RECURSE);
-        parser.parseHeadless(inStream, contentType.toString());
-        
-        // Move the parser to the beginning of the first part
-        while (parser.getState() != EntityState.T_START_BODYPART) {
-            try {
-                parser.next();
-            } catch (IOException ex) {
-                throw new MIMEException(ex);
-            } catch (MimeException ex) {
-                throw new MIMEException(ex);
+        this.prefetchExecutor = prefetchExecutor;
+        this.maxPrefetchedParts = maxPrefetchedParts;
+
+        if (content != null) {
+            parser = null;
+            index(content, getBoundary(contentType), trustPartContentLength);
+        } else {
+            if (nativeParser) {
+                parser = new NativeMultipartParser(inStream, getBoundary(contentType),
+                        trustPartContentLength);
+            } else {
+                parser = new Mime4jMultipartParser(inStream, contentType);
             }
         }
     }
@@ -173,6 +396,14 @@ public final class MultipartBody implements Iterable<Part> {
         return new Builder();
     }
 
+    private static String getBoundary(ContentType contentType) {
+        String boundary = contentType.getParameter("boundary");
+        if (boundary == null) {
+            throw new MIMEException("Content type doesn't specify a boundary");
+        }
+        return boundary;
+    }
+
     private static String normalizeContentID(String contentID) {
         contentID = contentID.trim();
         if (contentID.length() >= 2 && contentID.charAt(0) == '<'
@@ -191,6 +422,16 @@ public final class MultipartBody implements Iterable<Part> {
         return partBlobFactory;
     }
 
+    /**
+     * Get the length of the multipart body, as specified by
+     * {@link Builder#setContentLength(long)}.
+     * 
+     * @return the length in bytes, or -1 if unknown
+     */
+    long getContentLength() {
+        return contentLength;
+    }
+
     public ContentType getContentType() {
         return contentType;
     }
@@ -203,11 +444,11 @@ public final class MultipartBody implements Iterable<Part> {
      * @return the MIME part, or {@code null} if the message doesn't have a part with the given
      *         content ID
      */
-    public Part getPart(String contentID) {
+    public synchronized Part getPart(String contentID) {
         do {
             PartImpl part = partMap.get(contentID);
             if (part != null) {
-                return part;
+                return claim(part);
             }
         } while (getNextPart() != null);
         return null;
@@ -218,100 +459,310 @@ public final class MultipartBody implements Iterable<Part> {
      * 
      * @return the number of parts
      */
-    public int getPartCount() {
+    public synchronized int getPartCount() {
         detach();
         return partCount;
     }
 
-    PartImpl getFirstPart() {
+    synchronized PartImpl getFirstPart() {
         if (firstPart == null) {
             getNextPart();
         }
         return firstPart;
     }
 
-    public Part getRootPart() {
+    public synchronized Part getRootPart() {
         do {
             if (rootPart != null) {
-                return rootPart;
+                return claim(rootPart);
             }
         } while (getNextPart() != null);
         throw new MIMEException(
                 "Mandatory root MIME part is missing");
     }
 
-    PartImpl getNextPart() {
+    synchronized PartImpl getNextPart() {
+        int partCount = this.partCount;
+        awaitPrefetch(null);
+        if (this.partCount != partCount) {
+            // The prefetch task has parsed a new part while we were waiting
+            return currentPart;
+        }
+        if (complete) {
+            return null;
+        }
+        checkPrefetchFailure();
         if (currentPart != null) {
             currentPart.fetch();
         }
-        if (parser.getState() == EntityState.T_END_MULTIPART) {
+        HeaderTable headers;
+        try {
+            headers = parser.nextPart();
+        } catch (IOException ex) {
+            throw new MIMEException(ex);
+        }
+        nextPartParsed(headers);
+        return currentPart;
+    }
+
+    /**
+     * Update the state after the parser has moved to the next part. Must be called with the lock
+     * held.
+     * 
+     * @param headers
+     *            the headers of the next part, or {@code null} if the end of the multipart body
+     *            has been reached
+     */
+    private void nextPartParsed(HeaderTable headers) {
+        if (headers == null) {
             currentPart = null;
+            complete = true;
         } else {
-            String partContentID = null;
-            boolean isRootPart;
+            addPart(headers, null);
+        }
+    }
 
-            try {
-                checkParserState(parser.next(), EntityState.T_START_HEADER);
-                
-                List<Header> headers = new ArrayList<Header>();
-                while (parser.next() == EntityState.T_FIELD) {
-                    Field field = parser.getField();
-                    String name = field.getName();
-                    String value = field.getBody();
-                    
-                    if (log.isDebugEnabled()){
-                        log.debug("addHeader: (" + name + ") value=(" + value +")");
-                    }
-                    headers.add(new Header(name, value));
-                    if (partContentID == null && name.equalsIgnoreCase("Content-ID")) {
-                        partContentID = normalizeContentID(value);
-                    }
-                }
-                
-                checkParserState(parser.next(), EntityState.T_BODY);
-                
-                if (rootPartContentID == null) {
-                    isRootPart = firstPart == null;
-                } else {
-                    isRootPart = rootPartContentID.equals(partContentID);
+    /**
+     * Create a new part and make it the current part.
+     * 
+     * @param headers
+     *            the headers of the part
+     * @param content
+     *            the content of the part if it is accessible randomly, or {@code null} if it is
+     *            to be read from {@link #parser}
+     */
+    private void addPart(HeaderTable headers, Blob content) {
+        boolean isRootPart;
+
+        if (log.isDebugEnabled()) {
+            for (Header header : headers.getHeaders()) {
+                log.debug("addHeader: (" + header.getName() + ") value=(" + header.getValue() +")");
+            }
+        }
+        String partContentID = headers.getValue(Header.CONTENT_ID);
+        if (partContentID != null) {
+            partContentID = normalizeContentID(partContentID);
+        }
+        
+        if (rootPartContentID == null) {
+            isRootPart = firstPart == null;
+        } else {
+            isRootPart = rootPartContentID.equals(partContentID);
+        }
+        
+        PartImpl part;
+        if (content == null) {
+            part = new PartImpl(this, isRootPart ? MemoryBlob.FACTORY : attachmentBlobFactory, partContentID, headers, parser);
+        } else {
+            part = new PartImpl(this, partContentID, headers, content);
+        }
+        if (currentPart == null) {
+            firstPart = part;
+        } else {
+            currentPart.setNextPart(part);
+        }
+        currentPart = part;
+
+        partCount++;
+        if (partContentID != null) {
+            if (partMap.containsKey(partContentID)) {
+                throw new MIMEException(
+                        "Two MIME parts with the same Content-ID not allowed.");
+            }
+            partMap.put(partContentID, currentPart);
+        }
+        if (isRootPart) {
+            rootPart = currentPart;
+        }
+        if (partCreationListener != null) {
+            partCreationListener.partCreated(currentPart);
+        }
+    }
+
+    /**
+     * Build the index of the parts of a multipart body that is accessible randomly. The content
+     * of each part is represented by a slice of the blob, so that no data is copied.
+     * 
+     * @param blob
+     *            the multipart body
+     * @param boundary
+     *            the boundary
+     * @param trustPartContentLength
+     *            see {@link Builder#setTrustPartContentLength(boolean)}
+     */
+    private void index(Blob blob, String boundary, boolean trustPartContentLength) {
+        try (InputStream in = blob.getInputStream()) {
+            NativeMultipartParser indexer = new NativeMultipartParser(in, boundary,
+                    trustPartContentLength);
+            HeaderTable headers;
+            while ((headers = indexer.nextPart()) != null) {
+                long start = indexer.getContentOffset();
+                Blob content = blob.slice(start, indexer.skipContent() - start);
+                String contentTransferEncoding = headers.getValue(Header.CONTENT_TRANSFER_ENCODING);
+                if (contentTransferEncoding != null) {
+                    contentTransferEncoding = contentTransferEncoding.trim();
                 }
-                
-                PartImpl part = new PartImpl(this, isRootPart ? MemoryBlob.FACTORY : attachmentBlobFactory, partContentID, headers, parser);
-                if (currentPart == null) {
-                    firstPart = part;
-                } else {
-                    currentPart.setNextPart(part);
+                if (NativeMultipartParser.isEncoded(contentTransferEncoding)) {
+                    content = new DecodingBlob(content, contentTransferEncoding);
                 }
-                currentPart = part;
-            } catch (IOException ex) {
-                throw new MIMEException(ex);
-            } catch (MimeException ex) {
-                throw new MIMEException(ex);
+                addPart(headers, content);
             }
+        } catch (IOException ex) {
+            throw new MIMEException(ex);
+        }
+        currentPart = null;
+        complete = true;
+    }
 
-            partCount++;
-            if (partContentID != null) {
-                if (partMap.containsKey(partContentID)) {
-                    throw new MIMEException(
-                            "Two MIME parts with the same Content-ID not allowed.");
-                }
-                partMap.put(partContentID, currentPart);
+    /**
+     * Rethrow the error encountered by the prefetch task, if any. This must be called before
+     * reading from the underlying stream, because its state is undefined after an error.
+     * 
+     * @throws MIMEException
+     *             if the prefetch task failed
+     */
+    void checkPrefetchFailure() {
+        if (prefetchFailure != null) {
+            throw new MIMEException(prefetchFailure.getMessage(), prefetchFailure);
+        }
+    }
+
+    /**
+     * Wait until the prefetch task has finished reading from the parser. Must be called with the
+     * lock held.
+     * 
+     * @param part
+     *            the part whose state is going to be accessed, or {@code null} if the caller is
+     *            going to use the parser; the prefetch task only changes the state of the current
+     *            part, so that there is no need to wait if the part has already been read past
+     */
+    void awaitPrefetch(PartImpl part) {
+        boolean interrupted = false;
+        while (prefetching && (part == null || part == currentPart)) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                interrupted = true;
             }
-            if (isRootPart) {
-                rootPart = currentPart;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void startPrefetch() {
+        schedulePrefetch();
+    }
+
+    /**
+     * Submit a prefetch task to the executor if prefetching is enabled and the read-ahead limit
+     * has not been reached. Must be called with the lock held.
+     */
+    private void schedulePrefetch() {
+        if (prefetchExecutor != null && !prefetchScheduled && !prefetching && !complete
+                && prefetchFailure == null && prefetchedParts < maxPrefetchedParts) {
+            prefetchScheduled = true;
+            prefetchExecutor.execute(this::prefetch);
+        }
+    }
+
+    /**
+     * Read ahead by one part. Each invocation only advances by one part so that the application
+     * doesn't have to wait for the read-ahead limit to be reached. The lock is only held to check
+     * the state and to publish the result; while reading from the parser, other threads that need
+     * to access it wait in {@link #awaitPrefetch(PartImpl)}, but threads that access parts that
+     * have already been prefetched are not blocked.
+     */
+    private void prefetch() {
+        PartImpl previousPart;
+        synchronized (this) {
+            prefetchScheduled = false;
+            if (currentPart != null && currentPart.isStreaming()) {
+                // The application is reading the current part from the underlying stream; we will
+                // be rescheduled when it is done (see streamingCompleted).
+                return;
             }
-            if (partCreationListener != null) {
-                partCreationListener.partCreated(currentPart);
+            if (prefetching || complete || prefetchFailure != null
+                    || prefetchedParts >= maxPrefetchedParts) {
+                return;
             }
+            prefetching = true;
+            previousPart = currentPart;
         }
-        return currentPart;
+        HeaderTable headers;
+        try {
+            if (previousPart != null) {
+                previousPart.fetchContent();
+            }
+            headers = parser.nextPart();
+        } catch (IOException ex) {
+            prefetchCompleted(null, new MIMEException(ex));
+            return;
+        } catch (RuntimeException ex) {
+            prefetchCompleted(null, ex);
+            return;
+        } catch (Error ex) {
+            // Don't leave other threads waiting for the parser
+            prefetchCompleted(null, new MIMEException(ex));
+            throw ex;
+        }
+        prefetchCompleted(headers, null);
     }
 
-    private static void checkParserState(EntityState state, EntityState expected) throws IllegalStateException {
-        if (expected != state) {
-            throw new IllegalStateException("Internal error: expected parser to be in state "
-                    + expected + ", but got " + state);
+    /**
+     * Publish the result of {@link #prefetch()} and release the parser.
+     * 
+     * @param headers
+     *            the headers of the next part, or {@code null} if the end of the multipart body
+     *            has been reached or an error occurred
+     * @param failure
+     *            the error encountered by the prefetch task, or {@code null} on success
+     */
+    private synchronized void prefetchCompleted(HeaderTable headers, RuntimeException failure) {
+        prefetching = false;
+        notifyAll();
+        if (failure == null) {
+            try {
+                // This also invokes the PartCreationListener, which may throw any exception
+                nextPartParsed(headers);
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+        }
+        if (failure != null) {
+            log.debug("Prefetching failed", failure);
+            prefetchFailure = failure;
+            return;
         }
+        if (currentPart != null) {
+            currentPart.setPrefetched(true);
+            prefetchedParts++;
+        }
+        schedulePrefetch();
+    }
+
+    /**
+     * Notify this instance that the application has requested a part. If the part has been
+     * prefetched, this frees up a read-ahead slot.
+     * 
+     * @param part
+     *            the part returned to the application
+     * @return the part
+     */
+    synchronized PartImpl claim(PartImpl part) {
+        if (part != null && part.isPrefetched()) {
+            part.setPrefetched(false);
+            prefetchedParts--;
+            schedulePrefetch();
+        }
+        return part;
+    }
+
+    /**
+     * Notify this instance that the application has finished reading a part in streaming mode.
+     */
+    synchronized void streamingCompleted() {
+        schedulePrefetch();
     }
 
     @Override
@@ -319,7 +770,7 @@ public final class MultipartBody implements Iterable<Part> {
         return new PartIterator(this);
     }
 
-    public void detach() {
+    public synchronized void detach() {
         while (getNextPart() != null) {
             // Just loop
         }
@@ -44,6 +44,12 @@ import org.apache.axiom.util.UIDGenerator;
  * <li>The content ID passed as argument is always the raw ID (without the angle brackets). The
  * implementation translates this into a properly formatted {@code Content-ID} header.</li>
  * </ul>
+ * <p>
+ * If the sizes of the parts are known in advance, the exact length of the multipart body can be
+ * computed before writing it (e.g. to send a {@code Content-Length} header) using
+ * {@link #getPartLength(ContentType, ContentTransferEncoding, String, List, long)},
+ * {@link #getPartLength(Blob, ContentType, ContentTransferEncoding, String, List)} and
+ * {@link #getCompleteLength()}. These methods don't write anything to the underlying stream.
  */
 public final class MultipartBodyWriter {
     class PartOutputStream extends OutputStream {
@@ -74,6 +80,23 @@ public final class MultipartBodyWriter {
         }
     }
     
+    /**
+     * Output stream that discards the data written to it and only counts the number of bytes.
+     */
+    private static class LengthOutputStream extends OutputStream {
+        long length;
+
+        @Override
+        public void write(int b) {
+            length++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            length += len;
+        }
+    }
+
     private final OutputStream out;
     private final String boundary;
     private final byte[] buffer = new byte[256];
@@ -111,6 +134,28 @@ public final class MultipartBodyWriter {
         }
     }
     
+    /**
+     * Write the line break preceding a header, followed by the name of the header and the
+     * separator. Well-known header names are written in pre-encoded form.
+     * 
+     * @param name
+     *            the header name
+     * @throws IOException
+     *             if an I/O error occurs when writing to the underlying stream
+     */
+    private void writeHeaderName(String name) throws IOException {
+        out.write('\r');
+        out.write('\n');
+        byte[] encodedName = HeaderTable.getEncodedName(name);
+        if (encodedName == null) {
+            writeAscii(name);
+        } else {
+            out.write(encodedName);
+        }
+        out.write(':');
+        out.write(' ');
+    }
+    
     /**
      * Start writing a MIME part. The methods returns an {@link OutputStream} that the caller can
      * use to write the content of the MIME part. After writing the content,
@@ -132,31 +177,35 @@ public final class MultipartBodyWriter {
      */
     public OutputStream writePart(ContentType contentType, ContentTransferEncoding contentTransferEncoding,
             String contentID, List<Header> extraHeaders) throws IOException {
+        writePartHeaders(contentType, contentTransferEncoding, contentID, extraHeaders);
+        return contentTransferEncoding.encode(new PartOutputStream(out));
+    }
+
+    private void writePartHeaders(ContentType contentType, ContentTransferEncoding contentTransferEncoding,
+            String contentID, List<Header> extraHeaders) throws IOException {
         writeAscii("--");
         writeAscii(boundary);
         // RFC 2046 explicitly says that Content-Type is not mandatory (and defaults to
         // text/plain; charset=us-ascii).
         if (contentType != null) {
-            writeAscii("\r\nContent-Type: ");
+            writeHeaderName(Header.CONTENT_TYPE);
             writeAscii(contentType.toString());
         }
-        writeAscii("\r\nContent-Transfer-Encoding: ");
+        writeHeaderName(Header.CONTENT_TRANSFER_ENCODING);
         writeAscii(contentTransferEncoding.toString());
         if (contentID != null) {
-            writeAscii("\r\nContent-ID: <");
+            writeHeaderName(Header.CONTENT_ID);
+            out.write('<');
             writeAscii(contentID);
             out.write('>');
         }
         if (extraHeaders != null) {
             for (Header header : extraHeaders) {
-                writeAscii("\r\n");
-                writeAscii(header.getName());
-                writeAscii(": ");
+                writeHeaderName(header.getName());
                 writeAscii(header.getValue());
             }
         }
         writeAscii("\r\n\r\n");
-        return contentTransferEncoding.encode(new PartOutputStream(out));
     }
     
     /**
@@ -183,6 +232,76 @@ public final class MultipartBodyWriter {
         partOutputStream.close();
     }
     
+    /**
+     * Compute the number of bytes written by
+     * {@link #writePart(ContentType, ContentTransferEncoding, String, List)} for a MIME part with
+     * the given content length, including the bytes written when the returned stream is closed.
+     * This method doesn't write anything.
+     * 
+     * @param contentType
+     *            the content type of the MIME part; may be {@code null}
+     * @param contentTransferEncoding
+     *            the content transfer encoding to be used; must not be <code>null</code>
+     * @param contentID
+     *            the content ID of the MIME part; may be {@code null}
+     * @param extraHeaders
+     *            a list of {@link Header} objects with additional headers to write to the MIME
+     *            part; may be {@code null}
+     * @param contentLength
+     *            the length of the (unencoded) content, or -1 if unknown
+     * @return the length of the MIME part, or -1 if the content length is unknown or the encoded
+     *         length can't be determined for the given content transfer encoding
+     * @throws IOException
+     *             if the headers can't be encoded
+     */
+    public long getPartLength(ContentType contentType, ContentTransferEncoding contentTransferEncoding,
+            String contentID, List<Header> extraHeaders, long contentLength) throws IOException {
+        if (contentLength < 0) {
+            return -1;
+        }
+        long encodedLength = contentTransferEncoding.getEncodedLength(contentLength);
+        if (encodedLength < 0) {
+            return -1;
+        }
+        LengthOutputStream counter = new LengthOutputStream();
+        new MultipartBodyWriter(counter, boundary).writePartHeaders(contentType, contentTransferEncoding, contentID, extraHeaders);
+        // The content is followed by a CRLF written by PartOutputStream#close()
+        return counter.length + encodedLength + 2;
+    }
+
+    /**
+     * Compute the number of bytes written by
+     * {@link #writePart(Blob, ContentType, ContentTransferEncoding, String, List)}. This method
+     * doesn't write anything and only relies on {@link Blob#getSize()}.
+     * 
+     * @param blob
+     *            the content of the MIME part
+     * @param contentType
+     *            the content type; may be {@code null}
+     * @param contentTransferEncoding
+     *            the content transfer encoding to be used; must not be <code>null</code>
+     * @param contentID
+     *            the content ID of the MIME part
+     * @param extraHeaders
+     *            a list of {@link Header} objects with additional headers to write to the MIME part
+     * @return the length of the MIME part, or -1 if it can't be determined
+     * @throws IOException
+     *             if the headers can't be encoded
+     */
+    public long getPartLength(Blob blob, ContentType contentType, ContentTransferEncoding contentTransferEncoding,
+            String contentID, List<Header> extraHeaders) throws IOException {
+        return getPartLength(contentType, contentTransferEncoding, contentID, extraHeaders, blob.getSize());
+    }
+
+    /**
+     * Compute the number of bytes written by {@link #complete()}.
+     * 
+     * @return the length of the close delimiter
+     */
+    public long getCompleteLength() {
+        return boundary.length() + 6;
+    }
+
     /**
      * Complete writing of the MIME multipart package. This method does <b>not</b> close the
      * underlying stream.
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parser that splits a MIME multipart body into parts. This abstracts the parser implementation
+ * from {@link MultipartBody} and {@link PartImpl}.
+ */
+interface MultipartParser {
+    /**
+     * Advance to the next part. Any content of the current part that has not been consumed yet is
+     * skipped.
+     * 
+     * @return the headers of the next part, or {@code null} if there are no more parts
+     * @throws IOException
+     *             if an I/O error occurs while reading the underlying stream
+     * @throws MIMEException
+     *             if the multipart body is malformed
+     */
+    HeaderTable nextPart() throws IOException;
+
+    /**
+     * Get a stream that reads the content of the current part, decoded according to its
+     * {@code Content-Transfer-Encoding}. The stream is only valid until the next call to
+     * {@link #nextPart()}.
+     * 
+     * @return the decoded content of the current part
+     */
+    InputStream getDecodedInputStream();
+}
@@ -0,0 +1,548 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.james.mime4j.codec.Base64InputStream;
+import org.apache.james.mime4j.codec.DecodeMonitor;
+import org.apache.james.mime4j.codec.QuotedPrintableInputStream;
+
+/**
+ * {@link MultipartParser} implementation that works directly on a read buffer. Boundaries are
+ * located using the Boyer-Moore-Horspool algorithm, so that most bytes of the part content are
+ * never compared individually, and part content is handed to the consumer with bulk array copies.
+ * Headers are parsed in place, without intermediate objects other than the resulting
+ * {@link Header} instances.
+ * <p>
+ * Optionally, the parser can rely on the {@code Content-Length} header of a part (if present) to
+ * locate the end of its content. In that case the content is transferred in bulk (directly from
+ * the underlying stream into the consumer's array for large reads) and the delimiter is only
+ * checked once the declared number of bytes has been consumed.
+ */
+final class NativeMultipartParser implements MultipartParser {
+    private static final int BUFFER_SIZE = 65536;
+    
+    /**
+     * The maximum number of headers per part. This protects against malicious messages.
+     */
+    private static final int MAX_HEADER_COUNT = 1000;
+    
+    /**
+     * The minimum read size for which content with a declared length is read directly from the
+     * underlying stream instead of going through {@link #buffer}.
+     */
+    private static final int DIRECT_READ_THRESHOLD = 8192;
+
+    /**
+     * Stream returned by {@link NativeMultipartParser#getDecodedInputStream()} (before decoding).
+     * It returns the content of the current part and becomes invalid when the parser moves to the
+     * next part.
+     */
+    private final class ContentInputStream extends InputStream {
+        private boolean ensureContent() throws IOException {
+            if (content != this) {
+                return false;
+            }
+            if (declaredRemaining > 0) {
+                if (pos == limit && !fill(1)) {
+                    throw new EOFException("Unexpected end of stream in MIME part content");
+                }
+                return true;
+            }
+            if (declaredRemaining == 0) {
+                checkDelimiter();
+            }
+            if (pos == contentEnd) {
+                if (atDelimiter) {
+                    return false;
+                }
+                scan();
+            }
+            return pos < contentEnd;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureContent()) {
+                return -1;
+            }
+            if (declaredRemaining > 0) {
+                declaredRemaining--;
+            }
+            return buffer[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (content == this && declaredRemaining >= DIRECT_READ_THRESHOLD
+                    && len >= DIRECT_READ_THRESHOLD && pos == limit) {
+                // The buffer is empty and we know that the next bytes belong to the content;
+                // bypass the buffer.
+                bufferOffset += limit;
+                pos = limit = contentEnd = 0;
+                int c = in.read(b, off, (int)Math.min(len, declaredRemaining));
+                if (c == -1) {
+                    eof = true;
+                    throw new EOFException("Unexpected end of stream in MIME part content");
+                }
+                bufferOffset += c;
+                declaredRemaining -= c;
+                return c;
+            }
+            if (!ensureContent()) {
+                return -1;
+            }
+            int c;
+            if (declaredRemaining > 0) {
+                c = (int)Math.min(Math.min(len, limit - pos), declaredRemaining);
+                declaredRemaining -= c;
+            } else {
+                c = Math.min(len, contentEnd - pos);
+            }
+            System.arraycopy(buffer, pos, b, off, c);
+            pos += c;
+            return c;
+        }
+
+        @Override
+        public int available() {
+            if (content != this) {
+                return 0;
+            } else if (declaredRemaining > 0) {
+                return (int)Math.min(limit - pos, declaredRemaining);
+            } else {
+                return contentEnd - pos;
+            }
+        }
+    }
+
+    private final InputStream in;
+    
+    /**
+     * Indicates whether the {@code Content-Length} header of parts should be used to locate the
+     * end of their content.
+     */
+    private final boolean useContentLength;
+    
+    /**
+     * The delimiter that separates parts, i.e. CRLF followed by two hyphens and the boundary.
+     */
+    private final byte[] delimiter;
+    
+    /**
+     * The Boyer-Moore-Horspool shift table for {@link #delimiter}.
+     */
+    private final int[] shift = new int[256];
+    
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    
+    /**
+     * The offset in the stream corresponding to the start of {@link #buffer}. This is initially
+     * negative because of the CRLF inserted before the stream content.
+     */
+    private long bufferOffset = -2;
+    
+    private int pos;
+    private int limit;
+    private boolean eof;
+    
+    /**
+     * The end of the part content in {@link #buffer} that has been located so far. The bytes
+     * between {@link #pos} and this index are known to belong to the content of the current part.
+     */
+    private int contentEnd;
+    
+    /**
+     * Indicates whether {@link #contentEnd} is the start of a delimiter.
+     */
+    private boolean atDelimiter;
+    
+    /**
+     * Indicates whether the close delimiter has been reached.
+     */
+    private boolean finished;
+    
+    /**
+     * The stream returning the content of the current part, or {@code null} if we are not
+     * positioned on a part (i.e. before the first part or after the last one).
+     */
+    private ContentInputStream content;
+    
+    /**
+     * The offset in the stream of the content of the current part.
+     */
+    private long contentOffset;
+    
+    private String contentTransferEncoding;
+    
+    /**
+     * The value of the {@code Content-Length} header of the current part, or -1 if the header is
+     * absent or invalid or if {@link #useContentLength} is {@code false}.
+     */
+    private long contentLength;
+    
+    /**
+     * The number of bytes of the content of the current part that remain to be consumed according
+     * to its {@code Content-Length} header, or -1 if the end of the content is located by
+     * searching for the delimiter. While this is positive, {@link #contentEnd} is not maintained
+     * beyond {@link #limit}.
+     */
+    private long declaredRemaining = -1;
+
+    NativeMultipartParser(InputStream in, String boundary) {
+        this(in, boundary, false);
+    }
+
+    NativeMultipartParser(InputStream in, String boundary, boolean useContentLength) {
+        this.in = in;
+        this.useContentLength = useContentLength;
+        delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        int m = delimiter.length;
+        if (m > 512) {
+            throw new MIMEException("Boundary too long");
+        }
+        Arrays.fill(shift, m);
+        for (int i = 0; i < m - 1; i++) {
+            shift[delimiter[i] & 0xFF] = m - 1 - i;
+        }
+        // The first delimiter may appear at the very beginning of the stream, i.e. without being
+        // preceded by a line break. Prepending a CRLF allows the preamble to be skipped in the same
+        // way as the content of a part.
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * Ensure that the buffer contains at least the given number of bytes after {@link #pos}.
+     * 
+     * @param n
+     *            the number of bytes required; must not be larger than the buffer size
+     * @return {@code false} if the end of the stream has been reached before the requested number
+     *         of bytes became available
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private boolean fill(int n) throws IOException {
+        while (limit - pos < n) {
+            if (eof) {
+                return false;
+            }
+            if (limit == buffer.length || buffer.length - pos < n) {
+                int len = limit - pos;
+                System.arraycopy(buffer, pos, buffer, 0, len);
+                bufferOffset += pos;
+                contentEnd -= pos;
+                limit = len;
+                pos = 0;
+            }
+            int c = in.read(buffer, limit, buffer.length - limit);
+            if (c == -1) {
+                eof = true;
+            } else {
+                limit += c;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Search the buffer for the next delimiter. This is called when all located content has been
+     * consumed, i.e. when {@link #pos} is equal to {@link #contentEnd}. On return, either
+     * {@link #contentEnd} is larger than {@link #pos} or {@link #atDelimiter} is set.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs or the stream ends before the delimiter
+     */
+    private void scan() throws IOException {
+        int m = delimiter.length;
+        if (!fill(m)) {
+            throw new EOFException("Unexpected end of stream while looking for MIME boundary");
+        }
+        byte last = delimiter[m - 1];
+        int i = pos;
+        int max = limit - m;
+        while (i <= max) {
+            byte b = buffer[i + m - 1];
+            if (b == last && matches(i)) {
+                contentEnd = i;
+                atDelimiter = true;
+                return;
+            }
+            i += shift[b & 0xFF];
+        }
+        // All positions before i have been ruled out as the start of a delimiter; the remaining
+        // bytes may be the beginning of a delimiter that is not yet in the buffer.
+        contentEnd = i;
+    }
+
+    private boolean matches(int start) {
+        for (int j = 0, m = delimiter.length - 1; j < m; j++) {
+            if (buffer[start + j] != delimiter[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public HeaderTable nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        content = null;
+        // Skip the remaining content of the current part (or the preamble)
+        skipContent();
+        pos += delimiter.length;
+        atDelimiter = false;
+        if (!fill(2)) {
+            throw new EOFException("Unexpected end of stream after MIME boundary");
+        }
+        if (buffer[pos] == '-' && buffer[pos+1] == '-') {
+            // This is the close delimiter; ignore the epilogue.
+            finished = true;
+            return null;
+        }
+        // Skip transport padding
+        while (true) {
+            if (!fill(1)) {
+                throw new EOFException("Unexpected end of stream after MIME boundary");
+            }
+            byte b = buffer[pos];
+            if (b != ' ' && b != '\t') {
+                break;
+            }
+            pos++;
+        }
+        int lineEnd = findLineEnd();
+        if (lineEnd != pos && !(lineEnd == pos+1 && buffer[pos] == '\r')) {
+            throw new MIMEException("Invalid MIME boundary line");
+        }
+        pos = lineEnd + 1;
+        HeaderTable headers = parseHeaders();
+        contentEnd = pos;
+        contentOffset = bufferOffset + pos;
+        declaredRemaining = contentLength;
+        content = new ContentInputStream();
+        return headers;
+    }
+
+    /**
+     * Get the offset in the stream of the content of the current part.
+     * 
+     * @return the offset of the first byte of the content
+     */
+    long getContentOffset() {
+        return contentOffset;
+    }
+
+    /**
+     * Skip the remaining content of the current part.
+     * 
+     * @return the offset in the stream of the end of the content of the current part, i.e. the
+     *         offset of the delimiter that follows it
+     * @throws IOException
+     *             if an I/O error occurs or the stream ends before the delimiter
+     */
+    long skipContent() throws IOException {
+        while (declaredRemaining > 0) {
+            if (pos == limit && !fill(1)) {
+                throw new EOFException("Unexpected end of stream in MIME part content");
+            }
+            int c = (int)Math.min(limit - pos, declaredRemaining);
+            pos += c;
+            declaredRemaining -= c;
+        }
+        while (true) {
+            if (declaredRemaining == 0) {
+                checkDelimiter();
+            } else if (pos < contentEnd) {
+                pos = contentEnd;
+            } else if (atDelimiter) {
+                return bufferOffset + pos;
+            } else {
+                scan();
+            }
+        }
+    }
+
+    /**
+     * Check that the content of the current part, as delimited by its {@code Content-Length}
+     * header, is followed by a delimiter. This is called once all declared bytes have been
+     * consumed.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs or the stream ends before the delimiter
+     */
+    private void checkDelimiter() throws IOException {
+        if (!fill(delimiter.length)) {
+            throw new EOFException("Unexpected end of stream while looking for MIME boundary");
+        }
+        if (!matches(pos) || buffer[pos + delimiter.length - 1] != delimiter[delimiter.length - 1]) {
+            throw new MIMEException("The content of the MIME part doesn't match its Content-Length header");
+        }
+        contentEnd = pos;
+        atDelimiter = true;
+        declaredRemaining = -1;
+    }
+
+    /**
+     * Find the end of the line starting at {@link #pos}, reading more data if necessary.
+     * 
+     * @return the index of the LF character that terminates the line
+     * @throws IOException
+     *             if an I/O error occurs or the stream ends before the end of the line
+     */
+    private int findLineEnd() throws IOException {
+        int i = pos;
+        while (true) {
+            for (; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return i;
+                }
+            }
+            if (limit - pos == buffer.length) {
+                throw new MIMEException("MIME header line too long");
+            }
+            int offset = i - pos;
+            if (!fill(limit - pos + 1)) {
+                throw new EOFException("Unexpected end of stream in MIME part headers");
+            }
+            i = pos + offset;
+        }
+    }
+
+    private HeaderTable parseHeaders() throws IOException {
+        HeaderTable headers = new HeaderTable();
+        String name = null;
+        String value = null;
+        StringBuilder foldedValue = null;
+        while (true) {
+            int end = findLineEnd();
+            int lineEnd = end > pos && buffer[end-1] == '\r' ? end-1 : end;
+            if (lineEnd == pos) {
+                pos = end + 1;
+                break;
+            }
+            byte first = buffer[pos];
+            if (first == ' ' || first == '\t') {
+                // Continuation line; unfold it
+                if (name == null) {
+                    throw new MIMEException("Invalid MIME header: unexpected continuation line");
+                }
+                if (foldedValue == null) {
+                    foldedValue = new StringBuilder(value);
+                }
+                foldedValue.append(new String(buffer, pos, lineEnd-pos, StandardCharsets.ISO_8859_1));
+            } else {
+                if (name != null) {
+                    addHeader(headers, name, foldedValue == null ? value : foldedValue.toString());
+                    foldedValue = null;
+                }
+                int colon = pos;
+                while (colon < lineEnd && buffer[colon] != ':') {
+                    colon++;
+                }
+                int nameEnd = colon;
+                while (nameEnd > pos && (buffer[nameEnd-1] == ' ' || buffer[nameEnd-1] == '\t')) {
+                    nameEnd--;
+                }
+                if (colon == lineEnd || nameEnd == pos) {
+                    throw new MIMEException("Invalid MIME header line");
+                }
+                name = HeaderTable.createName(buffer, pos, nameEnd-pos);
+                int valueStart = colon + 1;
+                while (valueStart < lineEnd && (buffer[valueStart] == ' ' || buffer[valueStart] == '\t')) {
+                    valueStart++;
+                }
+                value = new String(buffer, valueStart, lineEnd-valueStart, StandardCharsets.ISO_8859_1);
+            }
+            pos = end + 1;
+        }
+        if (name != null) {
+            addHeader(headers, name, foldedValue == null ? value : foldedValue.toString());
+        }
+        String encoding = headers.getValue(Header.CONTENT_TRANSFER_ENCODING);
+        contentTransferEncoding = encoding == null ? null : encoding.trim();
+        contentLength = -1;
+        String length;
+        if (useContentLength && (length = headers.getValue(Header.CONTENT_LENGTH)) != null) {
+            try {
+                contentLength = Math.max(-1, Long.parseLong(length.trim()));
+            } catch (NumberFormatException ex) {
+                // Fall back to searching for the delimiter
+            }
+        }
+        return headers;
+    }
+
+    private static void addHeader(HeaderTable headers, String name, String value) {
+        if (headers.size() == MAX_HEADER_COUNT) {
+            throw new MIMEException("Too many MIME headers");
+        }
+        headers.add(name, value);
+    }
+
+    @Override
+    public InputStream getDecodedInputStream() {
+        if (content == null) {
+            throw new IllegalStateException();
+        }
+        return decode(content, contentTransferEncoding);
+    }
+
+    /**
+     * Check whether the given {@code Content-Transfer-Encoding} requires decoding.
+     * 
+     * @param contentTransferEncoding
+     *            the content transfer encoding, or {@code null} if not specified
+     * @return {@code true} if the encoding is {@code base64} or {@code quoted-printable}
+     */
+    static boolean isEncoded(String contentTransferEncoding) {
+        return "base64".equalsIgnoreCase(contentTransferEncoding)
+                || "quoted-printable".equalsIgnoreCase(contentTransferEncoding);
+    }
+
+    /**
+     * Wrap a stream with the decoder for the given {@code Content-Transfer-Encoding}.
+     * 
+     * @param in
+     *            the stream with the encoded content
+     * @param contentTransferEncoding
+     *            the content transfer encoding, or {@code null} if not specified
+     * @return the stream with the decoded content
+     */
+    static InputStream decode(InputStream in, String contentTransferEncoding) {
+        if ("base64".equalsIgnoreCase(contentTransferEncoding)) {
+            return new Base64InputStream(in, DecodeMonitor.STRICT);
+        } else if ("quoted-printable".equalsIgnoreCase(contentTransferEncoding)) {
+            return new QuotedPrintableInputStream(in, DecodeMonitor.STRICT);
+        } else {
+            return in;
+        }
+    }
+}
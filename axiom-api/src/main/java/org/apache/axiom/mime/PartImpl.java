@@ -26,14 +26,10 @@ import org.apache.axiom.blob.WritableBlobFactory;
 import org.apache.axiom.ext.io.StreamCopyException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.james.mime4j.MimeException;
-import org.apache.james.mime4j.stream.EntityState;
-import org.apache.james.mime4j.stream.MimeTokenStream;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -41,8 +37,7 @@ import java.util.List;
  */
 final class PartImpl implements Part {
     /**
-     * The part has not been read yet. In this case the parser is in state
-     * {@link EntityState#T_BODY}.
+     * The part has not been read yet. In this case the parser is positioned on this part.
      */
     private static final int STATE_UNREAD = 0;
     
@@ -69,7 +64,7 @@ final class PartImpl implements Part {
     private final WritableBlobFactory<?> blobFactory;
     
     private final String contentID;
-    private final List<Header> headers;
+    private final HeaderTable headers;
     private ContentType contentType;
     
     private int state = STATE_UNREAD;
@@ -78,12 +73,14 @@ final class PartImpl implements Part {
      * The MIME parser from which the content of this part is read. This is only set if the state is
      * {@link #STATE_UNREAD} or {@link #STATE_STREAMING}.
      */
-    private MimeTokenStream parser;
+    private MultipartParser parser;
     
     /**
-     * The content of this part. This is only set if the state is {@link #STATE_BUFFERED}.
+     * The content of this part. This is only set if the state is {@link #STATE_BUFFERED}. This is
+     * a {@link WritableBlob} if the content has been buffered, or a blob that shares the storage
+     * of the multipart body if it is accessed randomly.
      */
-    private WritableBlob content;
+    private Blob content;
     
     private PartBlob blob;
     
@@ -91,7 +88,19 @@ final class PartImpl implements Part {
     
     private PartImpl nextPart;
     
-    PartImpl(MultipartBody message, WritableBlobFactory<?> blobFactory, String contentID, List<Header> headers, MimeTokenStream parser) {
+    /**
+     * Indicates whether this part has been created by the prefetch task and has not been
+     * requested by the application yet.
+     */
+    private boolean prefetched;
+    
+    /**
+     * Indicates whether the stream returned in state {@link #STATE_STREAMING} has been consumed
+     * or closed.
+     */
+    private boolean streamClosed;
+    
+    PartImpl(MultipartBody message, WritableBlobFactory<?> blobFactory, String contentID, HeaderTable headers, MultipartParser parser) {
         this.message = message;
         this.blobFactory = blobFactory;
         this.contentID = contentID;
@@ -99,16 +108,18 @@ final class PartImpl implements Part {
         this.parser = parser;
     }
     
+    PartImpl(MultipartBody message, String contentID, HeaderTable headers, Blob content) {
+        this.message = message;
+        blobFactory = null;
+        this.contentID = contentID;
+        this.headers = headers;
+        this.content = content;
+        state = STATE_BUFFERED;
+    }
+    
     @Override
     public String getHeader(String name) {
-        String value = null;
-        for (int i=0, l=headers.size(); i<l; i++) {
-            Header header = headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                value = header.getValue();
-                break;
-            }
-        }
+        String value = headers.getValue(name);
         if(log.isDebugEnabled()){
             log.debug("getHeader name=(" + name + ") value=(" + value +")");
         }
@@ -117,7 +128,7 @@ final class PartImpl implements Part {
 
     @Override
     public List<Header> getHeaders() {
-        return Collections.unmodifiableList(headers);
+        return headers.getHeaders();
     }
 
     @Override
@@ -129,7 +140,7 @@ final class PartImpl implements Part {
     public ContentType getContentType() {
         if (contentType == null) {
             try {
-                contentType = new ContentType(getHeader("content-type"));
+                contentType = ContentType.parse(getHeader(Header.CONTENT_TYPE));
             } catch (ParseException ex) {
                 throw new MIMEException(ex);
             }
@@ -139,27 +150,32 @@ final class PartImpl implements Part {
     
     @Override
     public PartBlob getPartBlob() {
-        if (blob == null) {
-            blob = message.getPartBlobFactory().createBlob(this);
+        synchronized (message) {
+            if (blob == null) {
+                blob = message.getPartBlobFactory().createBlob(this);
+            }
+            return blob;
         }
-        return blob;
     }
 
-    private WritableBlob getContent() {
-        switch (state) {
-            case STATE_UNREAD:
-                fetch();
-                // Fall through
-            case STATE_BUFFERED:
-                return content;
-            default:
-                throw new IllegalStateException("The content of the MIME part has already been consumed");
+    private Blob getContent() {
+        synchronized (message) {
+            message.awaitPrefetch(this);
+            switch (state) {
+                case STATE_UNREAD:
+                    fetch();
+                    // Fall through
+                case STATE_BUFFERED:
+                    return content;
+                default:
+                    throw new IllegalStateException("The content of the MIME part has already been consumed");
+            }
         }
     }
     
     @Override
     public Blob getBlob() {
-        WritableBlob blob = getContent();
+        Blob blob = getContent();
         if (blob instanceof OverflowableBlob) {
             WritableBlob overflowBlob = ((OverflowableBlob)blob).getOverflowBlob();
             if (overflowBlob != null) {
@@ -169,13 +185,42 @@ final class PartImpl implements Part {
         return blob;
     }
 
-    private static void checkParserState(EntityState state, EntityState expected) throws IllegalStateException {
-        if (expected != state) {
-            throw new IllegalStateException("Internal error: expected parser to be in state "
-                    + expected + ", but got " + state);
+    /**
+     * Estimate the size of the decoded content of this part based on its
+     * {@code Content-Length} header.
+     * 
+     * @return the expected size, or -1 if unknown
+     */
+    private long getExpectedSize() {
+        String contentLength = getHeader(Header.CONTENT_LENGTH);
+        if (contentLength == null) {
+            return -1;
+        }
+        long length;
+        try {
+            length = Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+        if (length < 0) {
+            return -1;
+        }
+        String encoding = getHeader(Header.CONTENT_TRANSFER_ENCODING);
+        if (encoding == null) {
+            return length;
+        }
+        encoding = encoding.trim();
+        if (encoding.equalsIgnoreCase("binary") || encoding.equalsIgnoreCase("8bit")
+                || encoding.equalsIgnoreCase("7bit")) {
+            return length;
+        } else if (encoding.equalsIgnoreCase("base64")) {
+            return length / 4 * 3;
+        } else {
+            // The decoded size can't be estimated reliably.
+            return -1;
         }
     }
-    
+
     private InputStream getDecodedInputStream() {
         InputStream in = parser.getDecodedInputStream();
         if (log.isDebugEnabled()) {
@@ -186,11 +231,23 @@ final class PartImpl implements Part {
     
     @Override
     public void fetch() {
+        synchronized (message) {
+            message.awaitPrefetch(this);
+            fetchContent();
+        }
+    }
+
+    /**
+     * Buffer the content of this part. The caller must either hold the lock on the
+     * {@link MultipartBody} and have called {@link MultipartBody#awaitPrefetch(PartImpl)}, or be
+     * the prefetch task, which has exclusive access to the parser while it runs.
+     */
+    void fetchContent() {
         switch (state) {
             case STATE_UNREAD:
-                checkParserState(parser.getState(), EntityState.T_BODY);
-
-                content = blobFactory.createBlob();
+                message.checkPrefetchFailure();
+                WritableBlob content = blobFactory.createBlob(getExpectedSize(), message.getContentLength());
+                this.content = content;
                 if (log.isDebugEnabled()) {
                     log.debug("Using blob of type " + content.getClass().getName());
                 }
@@ -203,7 +260,7 @@ final class PartImpl implements Part {
                         throw new MIMEException("Failed to write the MIME part content to temporary storage", ex.getCause());
                     }
                 }
-                moveToNextPart();
+                parser = null;
                 state = STATE_BUFFERED;
                 break;
             case STATE_STREAMING:
@@ -214,80 +271,93 @@ final class PartImpl implements Part {
                     throw new MIMEException(ex);
                 }
                 partInputStream = null;
-                moveToNextPart();
+                parser = null;
                 state = STATE_DISCARDED;
         }
     }
     
-    private void moveToNextPart() {
-        try {
-            checkParserState(parser.next(), EntityState.T_END_BODYPART);
-            EntityState state = parser.next();
-            if (state == EntityState.T_EPILOGUE) {
-                while (parser.next() != EntityState.T_END_MULTIPART) {
-                    // Just loop
-                }
-            } else if (state != EntityState.T_START_BODYPART && state != EntityState.T_END_MULTIPART) {
-                throw new IllegalStateException("Internal error: unexpected parser state " + state);
-            }
-        } catch (IOException ex) {
-            throw new MIMEException(ex);
-        } catch (MimeException ex) {
-            throw new MIMEException(ex);
-        }
-        parser = null;
-    }
-    
     @Override
     public InputStream getInputStream(boolean preserve) {
-        if (!preserve && state == STATE_UNREAD) {
-            checkParserState(parser.getState(), EntityState.T_BODY);
-            state = STATE_STREAMING;
-            partInputStream = new PartInputStream(getDecodedInputStream(), blobFactory);
-            return partInputStream;
-        } else {
-            WritableBlob content = getContent();
-            try {
-                if (preserve) {
-                    return content.getInputStream();
-                } else {
-                    return new PartInputStream(content);
+        synchronized (message) {
+            message.awaitPrefetch(this);
+            if (!preserve && state == STATE_UNREAD) {
+                message.checkPrefetchFailure();
+                state = STATE_STREAMING;
+                partInputStream = new PartInputStream(getDecodedInputStream(), blobFactory, this);
+                return partInputStream;
+            } else {
+                Blob content = getContent();
+                try {
+                    if (preserve) {
+                        return content.getInputStream();
+                    } else {
+                        return new PartInputStream(content);
+                    }
+                } catch (IOException ex) {
+                    throw new MIMEException("Failed to retrieve part content from blob", ex);
                 }
-            } catch (IOException ex) {
-                throw new MIMEException("Failed to retrieve part content from blob", ex);
             }
         }
     }
     
     @Override
     public void discard() {
-        try {
-            switch (state) {
-                case STATE_UNREAD:
-                    EntityState parserState;
-                    do {
-                        parserState = parser.next();
-                    } while (parserState != EntityState.T_START_BODYPART && parserState != EntityState.T_END_MULTIPART);
-                    state = STATE_DISCARDED;
-                    break;
-                case STATE_BUFFERED:
-                    content.release();
+        synchronized (message) {
+            message.awaitPrefetch(this);
+            try {
+                switch (state) {
+                    case STATE_UNREAD:
+                        // The content will be skipped when the parser moves to the next part
+                        parser = null;
+                        state = STATE_DISCARDED;
+                        break;
+                    case STATE_BUFFERED:
+                        if (content instanceof WritableBlob) {
+                            ((WritableBlob)content).release();
+                        }
+                }
+            } catch (IOException ex) {
+                throw new MIMEException(ex);
             }
-        } catch (MimeException ex) {
-            throw new MIMEException(ex);
-        } catch (IOException ex) {
-            throw new MIMEException(ex);
         }
     }
     
     PartImpl getNextPart() {
-        if (nextPart == null) {
-            message.getNextPart();
+        synchronized (message) {
+            if (nextPart == null) {
+                message.getNextPart();
+            }
+            return nextPart;
         }
-        return nextPart;
     }
 
     void setNextPart(PartImpl nextPart) {
         this.nextPart = nextPart;
     }
+
+    boolean isPrefetched() {
+        return prefetched;
+    }
+
+    void setPrefetched(boolean prefetched) {
+        this.prefetched = prefetched;
+    }
+
+    /**
+     * Check whether the application is currently reading the content of this part directly from
+     * the underlying stream.
+     * 
+     * @return {@code true} if the part is being streamed and the stream has not been consumed or
+     *         closed yet
+     */
+    boolean isStreaming() {
+        return state == STATE_STREAMING && !streamClosed;
+    }
+
+    void streamClosed() {
+        synchronized (message) {
+            streamClosed = true;
+            message.streamingCompleted();
+        }
+    }
 }
@@ -21,26 +21,34 @@ package org.apache.axiom.mime;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.axiom.blob.Blob;
 import org.apache.axiom.blob.MemoryBlob;
 import org.apache.axiom.blob.WritableBlob;
 import org.apache.axiom.blob.WritableBlobFactory;
 
 final class PartInputStream extends InputStream {
-    private WritableBlob content;
+    private Blob content;
     private InputStream in;
     private WritableBlobFactory<?> blobFactory;
     
-    PartInputStream(WritableBlob content) throws IOException {
+    /**
+     * The part to notify when the stream has been consumed or closed, or {@code null} if no
+     * notification is required.
+     */
+    private PartImpl part;
+    
+    PartInputStream(Blob content) throws IOException {
         this.content = content;
         in = getInputStream(content);
     }
     
-    PartInputStream(InputStream in, WritableBlobFactory<?> blobFactory) {
+    PartInputStream(InputStream in, WritableBlobFactory<?> blobFactory, PartImpl part) {
         this.in = in;
         this.blobFactory = blobFactory;
+        this.part = part;
     }
     
-    private static InputStream getInputStream(WritableBlob content) throws IOException {
+    private static InputStream getInputStream(Blob content) throws IOException {
         if (content instanceof MemoryBlob) {
             return ((MemoryBlob)content).readOnce();
         } else {
@@ -116,9 +124,14 @@ final class PartInputStream extends InputStream {
             in.close();
             in = null;
         }
-        if (content != null) {
-            content.release();
-            content = null;
+        if (content instanceof WritableBlob) {
+            ((WritableBlob)content).release();
+        }
+        content = null;
+        if (part != null) {
+            PartImpl part = this.part;
+            this.part = null;
+            part.streamClosed();
         }
     }
 }
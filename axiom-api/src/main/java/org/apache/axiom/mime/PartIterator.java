@@ -47,7 +47,7 @@ final class PartIterator implements Iterator<Part> {
     public Part next() {
         if (hasNext()) {
             hasNextCalled = false;
-            return part;
+            return message.claim(part);
         } else {
             throw new NoSuchElementException();
         }
@@ -35,6 +35,7 @@ import org.xml.sax.ext.LexicalHandler;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 
 /**
@@ -207,6 +208,35 @@ public interface OMContainer extends OMSerializable {
     //       (obviously the method can't produce XOP/MTOM and the charset encoding is ignored)
     void serialize(Writer writer, OMOutputFormat format, boolean cache) throws IOException;
 
+    /**
+     * Serialize the node to a channel. This produces the same output as
+     * {@link #serialize(OutputStream, boolean)}, but the serialized infoset is encoded directly
+     * into (pooled) direct buffers that are written to the channel.
+     * 
+     * @param channel
+     *            the channel to write the serialized infoset to; must be in blocking mode
+     * @param cache
+     *            indicates if caching should be enabled
+     * @throws IOException if the channel throws an {@link IOException}
+     */
+    void serialize(WritableByteChannel channel, boolean cache) throws IOException;
+
+    /**
+     * Serialize the node to a channel. This produces the same output as
+     * {@link #serialize(OutputStream, OMOutputFormat, boolean)}. If the output format is not
+     * optimized, the serialized infoset is encoded directly into (pooled) direct buffers that are
+     * written to the channel.
+     * 
+     * @param channel
+     *            the channel to write the serialized infoset to; must be in blocking mode
+     * @param format
+     *            the output format to use
+     * @param cache
+     *            indicates if caching should be enabled
+     * @throws IOException if the channel throws an {@link IOException}
+     */
+    void serialize(WritableByteChannel channel, OMOutputFormat format, boolean cache) throws IOException;
+
     /**
      * @deprecated Use {@link #serialize(OutputStream, boolean)} instead.
      */
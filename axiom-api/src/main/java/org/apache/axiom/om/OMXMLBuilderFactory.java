@@ -636,7 +636,7 @@ public class OMXMLBuilderFactory {
             MultipartBody message) {
         MediaType type;
         try {
-            type = new ContentType(message.getRootPart().getContentType().getParameter("type")).getMediaType();
+            type = ContentType.parse(message.getRootPart().getContentType().getParameter("type")).getMediaType();
         } catch (ParseException ex) {
             throw new OMException("Failed to parse root part content type", ex);
         }
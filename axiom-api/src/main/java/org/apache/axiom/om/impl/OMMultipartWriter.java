@@ -214,6 +214,69 @@ public class OMMultipartWriter {
         part.close();
     }
 
+    /**
+     * Compute the number of bytes written by {@link #writeRootPart()} (including the bytes written
+     * when the returned stream is closed) if the given number of bytes is written to the stream.
+     * This method delegates to
+     * {@link MultipartBodyWriter#getPartLength(ContentType, ContentTransferEncoding, String, List, long)}.
+     * Together with {@link #getPartLength(Blob, String, List)} and {@link #getCompleteLength()},
+     * this allows to compute the length of the MIME package before writing it.
+     * 
+     * @param contentLength
+     *            the length of the content of the root part, or -1 if unknown
+     * @return the length of the root part, or -1 if it can't be determined
+     * @throws IOException
+     *             if the headers can't be encoded
+     */
+    public long getRootPartLength(long contentLength) throws IOException {
+        return writer.getPartLength(rootPartContentType, ContentTransferEncoding.BINARY, format.getRootContentId(), null, contentLength);
+    }
+
+    /**
+     * Compute the number of bytes written by {@link #writePart(Blob, String, List)}. This method
+     * delegates to
+     * {@link MultipartBodyWriter#getPartLength(Blob, ContentType, ContentTransferEncoding, String, List)}
+     * and doesn't write anything.
+     * 
+     * @param blob
+     *            the content of the MIME part
+     * @param contentID
+     *            the content ID of the MIME part
+     * @param extraHeaders
+     *            a list of {@link Header} objects with additional headers to write to the MIME part
+     * @return the length of the MIME part, or -1 if it can't be determined
+     * @throws IOException
+     *             if the headers can't be encoded
+     */
+    public long getPartLength(Blob blob, String contentID, List<Header> extraHeaders) throws IOException {
+        ContentType contentType = getContentType(blob);
+        return writer.getPartLength(blob, contentType, getContentTransferEncoding(blob, contentType), contentID, extraHeaders);
+    }
+
+    /**
+     * Compute the number of bytes written by {@link #writePart(Blob, String)}.
+     * 
+     * @param blob
+     *            the content of the MIME part
+     * @param contentID
+     *            the content ID of the MIME part
+     * @return the length of the MIME part, or -1 if it can't be determined
+     * @throws IOException
+     *             if the headers can't be encoded
+     */
+    public long getPartLength(Blob blob, String contentID) throws IOException {
+        return getPartLength(blob, contentID, null);
+    }
+
+    /**
+     * Compute the number of bytes written by {@link #complete()}.
+     * 
+     * @return the length of the close delimiter
+     */
+    public long getCompleteLength() {
+        return writer.getCompleteLength();
+    }
+
     /**
      * Complete writing of the MIME multipart package. This method delegates to
      * {@link MultipartBodyWriter#complete()}.
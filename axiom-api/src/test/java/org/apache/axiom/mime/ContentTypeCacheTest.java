@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+public class ContentTypeCacheTest extends TestCase {
+    public void testBounded() throws Exception {
+        ContentTypeCache cache = new ContentTypeCache(4);
+        for (int i=0; i<100; i++) {
+            cache.get("application/x-test" + i);
+        }
+        assertThat(cache.size()).isEqualTo(4);
+    }
+
+    public void testRecentlyUsedRetained() throws Exception {
+        ContentTypeCache cache = new ContentTypeCache(3);
+        ContentType hot = cache.get("text/xml; charset=UTF-8");
+        for (int i=0; i<10; i++) {
+            cache.get("application/x-test" + i);
+            assertThat(cache.get("text/xml; charset=UTF-8")).isSameInstanceAs(hot);
+        }
+    }
+
+    public void testBoundaryNotCached() throws Exception {
+        ContentTypeCache cache = new ContentTypeCache(4);
+        ContentType contentType = cache.get("multipart/related; boundary=b1");
+        assertThat(contentType.getParameter("boundary")).isEqualTo("b1");
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.get("multipart/related; boundary=b1")).isNotSameInstanceAs(contentType);
+    }
+}
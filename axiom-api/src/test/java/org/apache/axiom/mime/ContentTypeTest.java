@@ -136,4 +136,16 @@ public class ContentTypeTest extends TestCase {
         assertThat(isTextual("foo/bar; charset=UTF-8")).isTrue();
         assertThat(isTextual("image/gif")).isFalse();
     }
+
+    public void testParseCached() throws Exception {
+        String value = "application/xop+xml; charset=UTF-8; type=\"application/soap+xml\"";
+        ContentType ct = ContentType.parse(value);
+        assertThat(ct.getMediaType()).isEqualTo(MediaType.APPLICATION_XOP_XML);
+        assertThat(ct.getParameter("type")).isEqualTo("application/soap+xml");
+        assertThat(ContentType.parse(new String(value))).isSameInstanceAs(ct);
+    }
+
+    public void testParseInvalid() {
+        assertThrows(ParseException.class, () -> ContentType.parse("text"));
+    }
 }
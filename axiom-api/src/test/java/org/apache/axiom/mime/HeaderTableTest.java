@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.TestCase;
+
+public class HeaderTableTest extends TestCase {
+    public void testCaseInsensitiveLookup() {
+        HeaderTable headers = new HeaderTable();
+        headers.add("content-type", "text/plain");
+        headers.add("X-Custom", "value");
+        assertThat(headers.getValue(Header.CONTENT_TYPE)).isEqualTo("text/plain");
+        assertThat(headers.getValue("CONTENT-TYPE")).isEqualTo("text/plain");
+        assertThat(headers.getValue("x-custom")).isEqualTo("value");
+        assertThat(headers.getValue(Header.CONTENT_ID)).isNull();
+        assertThat(headers.getValue("X-Other")).isNull();
+    }
+
+    public void testFirstValueWins() {
+        HeaderTable headers = new HeaderTable();
+        headers.add(Header.CONTENT_ID, "<first>");
+        headers.add("Content-Id", "<second>");
+        headers.add("X-Custom", "first");
+        headers.add("x-custom", "second");
+        assertThat(headers.getValue(Header.CONTENT_ID)).isEqualTo("<first>");
+        assertThat(headers.getValue("X-CUSTOM")).isEqualTo("first");
+        assertThat(headers.size()).isEqualTo(4);
+    }
+
+    public void testOrderAndCasePreserved() {
+        HeaderTable headers = new HeaderTable();
+        headers.add("content-id", "<p1>");
+        headers.add("X-Custom", "value");
+        assertThat(headers.getHeaders()).hasSize(2);
+        assertThat(headers.getHeaders().get(0).getName()).isEqualTo("content-id");
+        assertThat(headers.getHeaders().get(1).getName()).isEqualTo("X-Custom");
+    }
+
+    public void testCreateName() {
+        byte[] buffer = "xContent-Typex".getBytes(StandardCharsets.US_ASCII);
+        assertThat(HeaderTable.createName(buffer, 1, 12)).isSameInstanceAs(Header.CONTENT_TYPE);
+        buffer = "content-type".getBytes(StandardCharsets.US_ASCII);
+        assertThat(HeaderTable.createName(buffer, 0, buffer.length)).isEqualTo("content-type");
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.blob.MemoryBlob;
+import org.apache.axiom.blob.WritableBlob;
+import org.apache.axiom.blob.WritableBlobFactory;
+import org.apache.axiom.util.UIDGenerator;
+import org.apache.commons.io.IOUtils;
+
+import junit.framework.TestCase;
+
+public class MultipartBodyTest extends TestCase {
+    public void testSizeHints() throws Exception {
+        String boundary = UIDGenerator.generateMimeBoundary();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MultipartBodyWriter mpw = new MultipartBodyWriter(baos, boundary);
+        ContentType contentType = ContentType.builder()
+                .setMediaType(MediaType.APPLICATION_OCTET_STREAM).build();
+        mpw.writePart(contentType, ContentTransferEncoding.BINARY, "root@example.org", null).close();
+        try (OutputStream out = mpw.writePart(contentType, ContentTransferEncoding.BINARY, "part1@example.org",
+                    Collections.singletonList(new Header(Header.CONTENT_LENGTH, "1000")))) {
+            out.write(new byte[1000]);
+        }
+        try (OutputStream out = mpw.writePart(contentType, ContentTransferEncoding.BASE64, "part2@example.org",
+                    Collections.singletonList(new Header(Header.CONTENT_LENGTH, "400")))) {
+            out.write(new byte[300]);
+        }
+        try (OutputStream out = mpw.writePart(contentType, ContentTransferEncoding.BINARY, "part3@example.org", null)) {
+            out.write(new byte[10]);
+        }
+        mpw.complete();
+        byte[] message = baos.toByteArray();
+
+        List<long[]> hints = new ArrayList<>();
+        WritableBlobFactory<WritableBlob> factory = new WritableBlobFactory<WritableBlob>() {
+            @Override
+            public WritableBlob createBlob() {
+                throw new AssertionError();
+            }
+
+            @Override
+            public WritableBlob createBlob(long expectedSize, long maxSize) {
+                hints.add(new long[] { expectedSize, maxSize });
+                return MemoryBlob.FACTORY.createBlob(expectedSize, maxSize);
+            }
+        };
+        MultipartBody mb = MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(message))
+                .setContentType("multipart/related; boundary=\"" + boundary
+                        + "\"; type=\"application/octet-stream\"")
+                .setAttachmentBlobFactory(factory)
+                .setContentLength(message.length)
+                .build();
+        assertThat(mb.getPart("part1@example.org").getBlob().getSize()).isEqualTo(1000);
+        assertThat(mb.getPart("part2@example.org").getBlob().getSize()).isEqualTo(300);
+        assertThat(mb.getPart("part3@example.org").getBlob().getSize()).isEqualTo(10);
+        assertThat(hints).hasSize(3);
+        assertThat(hints.get(0)).isEqualTo(new long[] { 1000, message.length });
+        assertThat(hints.get(1)).isEqualTo(new long[] { 300, message.length });
+        assertThat(hints.get(2)).isEqualTo(new long[] { -1, message.length });
+    }
+
+    /**
+     * Executor that queues tasks until they are explicitly executed by the test.
+     */
+    private static class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private static final String BOUNDARY = "boundary";
+
+    private static byte[][] createContents() {
+        Random random = new Random(42);
+        byte[][] contents = new byte[5][];
+        for (int i=0; i<contents.length; i++) {
+            contents[i] = new byte[i * 10000];
+            random.nextBytes(contents[i]);
+        }
+        return contents;
+    }
+
+    private static byte[] createMessage(byte[][] contents) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MultipartBodyWriter mpw = new MultipartBodyWriter(baos, BOUNDARY);
+        ContentType contentType = ContentType.builder()
+                .setMediaType(MediaType.APPLICATION_OCTET_STREAM).build();
+        for (int i=0; i<contents.length; i++) {
+            try (OutputStream out = mpw.writePart(contentType, ContentTransferEncoding.BINARY, "part" + i, null)) {
+                out.write(contents[i]);
+            }
+        }
+        mpw.complete();
+        return baos.toByteArray();
+    }
+
+    private static MultipartBody.Builder builder(byte[] message) {
+        return MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(message))
+                .setContentType("multipart/related; boundary=" + BOUNDARY);
+    }
+
+    public void testPrefetchBounded() throws Exception {
+        byte[][] contents = createContents();
+        ManualExecutor executor = new ManualExecutor();
+        List<Part> createdParts = new ArrayList<>();
+        MultipartBody mb = builder(createMessage(contents))
+                .setPrefetchExecutor(executor)
+                .setMaxPrefetchedParts(2)
+                .setPartCreationListener(createdParts::add)
+                .build();
+        executor.runAll();
+        assertThat(createdParts).hasSize(2);
+        // Requesting the root part frees up a read-ahead slot
+        Part rootPart = mb.getRootPart();
+        executor.runAll();
+        assertThat(createdParts).hasSize(3);
+        // The root part has been buffered by the background task
+        assertThat(IOUtils.toByteArray(rootPart.getInputStream(false))).isEqualTo(contents[0]);
+        int i = 0;
+        for (Part part : mb) {
+            executor.runAll();
+            if (i > 0) {
+                assertThat(IOUtils.toByteArray(part.getInputStream(false))).isEqualTo(contents[i]);
+            }
+            i++;
+        }
+        assertThat(i).isEqualTo(contents.length);
+    }
+
+    public void testPrefetchWithStreamingConsumer() throws Exception {
+        byte[][] contents = createContents();
+        ManualExecutor executor = new ManualExecutor();
+        List<Part> createdParts = new ArrayList<>();
+        MultipartBody mb = builder(createMessage(contents))
+                .setPrefetchExecutor(executor)
+                .setMaxPrefetchedParts(contents.length)
+                .setPartCreationListener(createdParts::add)
+                .build();
+        // Start streaming the root part before the background task runs; this must pause it
+        InputStream in = mb.getRootPart().getInputStream(false);
+        executor.runAll();
+        assertThat(createdParts).hasSize(1);
+        assertThat(IOUtils.toByteArray(in)).isEqualTo(contents[0]);
+        // Once the stream has been consumed, the background task resumes
+        executor.runAll();
+        assertThat(createdParts).hasSize(contents.length);
+        for (int i=1; i<contents.length; i++) {
+            assertThat(IOUtils.toByteArray(mb.getPart("part" + i).getInputStream(false))).isEqualTo(contents[i]);
+        }
+    }
+
+    private void testPrefetchWithThreadPool(boolean nativeParser) throws Exception {
+        byte[][] contents = createContents();
+        byte[] message = createMessage(contents);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int n=0; n<50; n++) {
+                MultipartBody mb = builder(message)
+                        .setNativeParser(nativeParser)
+                        .setPrefetchExecutor(executor)
+                        .build();
+                assertThat(IOUtils.toByteArray(mb.getRootPart().getInputStream(false))).isEqualTo(contents[0]);
+                for (int i=contents.length-1; i>0; i--) {
+                    assertThat(IOUtils.toByteArray(mb.getPart("part" + i).getInputStream(n % 2 == 0))).isEqualTo(contents[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testPrefetchWithThreadPoolMime4j() throws Exception {
+        testPrefetchWithThreadPool(false);
+    }
+
+    public void testPrefetchWithThreadPoolNative() throws Exception {
+        testPrefetchWithThreadPool(true);
+    }
+
+    /**
+     * Tests that parts that have already been prefetched can be accessed while the prefetch task
+     * is blocked reading from the underlying stream.
+     */
+    public void testPrefetchDoesntBlockPrefetchedParts() throws Exception {
+        byte[][] contents = createContents();
+        byte[] message = createMessage(contents);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        // Block in the middle of the content of the fourth part
+        int blockAt = message.length / 2;
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(message)) {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (position >= blockAt) {
+                    blocked.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException ex) {
+                        throw new IOException(ex);
+                    }
+                } else {
+                    len = Math.min(len, blockAt - position);
+                }
+                int c = super.read(b, off, len);
+                if (c > 0) {
+                    position += c;
+                }
+                return c;
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            MultipartBody mb = MultipartBody.builder()
+                    .setInputStream(in)
+                    .setContentType("multipart/related; boundary=" + BOUNDARY)
+                    .setPrefetchExecutor(executor)
+                    .setMaxPrefetchedParts(contents.length)
+                    .build();
+            assertThat(blocked.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<byte[]> future = executor.submit(
+                    () -> IOUtils.toByteArray(mb.getPart("part1").getInputStream(false)));
+            assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo(contents[1]);
+            resume.countDown();
+            for (int i=2; i<contents.length; i++) {
+                assertThat(IOUtils.toByteArray(mb.getPart("part" + i).getInputStream(false))).isEqualTo(contents[i]);
+            }
+        } finally {
+            resume.countDown();
+            executor.shutdown();
+        }
+    }
+
+    public void testPrefetchFailure() throws Exception {
+        byte[] message = createMessage(createContents());
+        byte[] truncatedMessage = new byte[message.length / 2];
+        System.arraycopy(message, 0, truncatedMessage, 0, truncatedMessage.length);
+        ManualExecutor executor = new ManualExecutor();
+        MultipartBody mb = builder(truncatedMessage)
+                .setPrefetchExecutor(executor)
+                .build();
+        executor.runAll();
+        assertThat(new String(IOUtils.toByteArray(mb.getRootPart().getInputStream(true)), StandardCharsets.ISO_8859_1)).isEmpty();
+        assertThrows(MIMEException.class, mb::getPartCount);
+    }
+
+    public void testPrefetchFailureInListener() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        IllegalStateException exception = new IllegalStateException();
+        MultipartBody mb = builder(createMessage(createContents()))
+                .setPrefetchExecutor(executor)
+                .setPartCreationListener(part -> {
+                    if (part.getContentID().equals("part1")) {
+                        throw exception;
+                    }
+                })
+                .build();
+        // The exception must not propagate to the executor
+        executor.runAll();
+        MIMEException ex = assertThrows(MIMEException.class, mb::getPartCount);
+        assertThat(ex).hasCauseThat().isSameInstanceAs(exception);
+    }
+
+    public void testBuffer() throws Exception {
+        byte[][] contents = createContents();
+        byte[] message = createMessage(contents);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(message.length + 10);
+        buffer.position(10);
+        buffer.put(message);
+        buffer.position(10);
+        MultipartBody mb = MultipartBody.builder()
+                .setBuffer(buffer)
+                .setContentType("multipart/related; boundary=" + BOUNDARY)
+                .build();
+        assertThat(mb.getPartCount()).isEqualTo(contents.length);
+        for (int i=contents.length-1; i>=0; i--) {
+            Part part = mb.getPart("part" + i);
+            assertThat(part.getBlob().getSize()).isEqualTo(contents[i].length);
+            assertThat(IOUtils.toByteArray(part.getInputStream(true))).isEqualTo(contents[i]);
+        }
+        assertThat(IOUtils.toByteArray(mb.getRootPart().getInputStream(false))).isEqualTo(contents[0]);
+    }
+
+    public void testFileChannel() throws Exception {
+        String boundary = UIDGenerator.generateMimeBoundary();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MultipartBodyWriter mpw = new MultipartBodyWriter(baos, boundary);
+        ContentType contentType = ContentType.builder()
+                .setMediaType(MediaType.APPLICATION_OCTET_STREAM).build();
+        byte[] content = new byte[5000];
+        new Random(42).nextBytes(content);
+        mpw.writePart(contentType, ContentTransferEncoding.BINARY, "root@example.org", null).close();
+        try (OutputStream out = mpw.writePart(contentType, ContentTransferEncoding.BASE64, "part1@example.org", null)) {
+            out.write(content);
+        }
+        mpw.complete();
+        Path file = Files.createTempFile("multipart", ".bin");
+        try {
+            Files.write(file, baos.toByteArray());
+            MultipartBody mb;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                mb = MultipartBody.builder()
+                        .setFileChannel(channel)
+                        .setContentType("multipart/related; boundary=\"" + boundary + "\"")
+                        .build();
+            }
+            assertThat(mb.getRootPart().getBlob().getSize()).isEqualTo(0);
+            Part part = mb.getPart("part1@example.org");
+            // The size of a base64 encoded part is unknown without decoding it
+            assertThat(part.getBlob().getSize()).isEqualTo(-1);
+            assertThat(IOUtils.toByteArray(part.getInputStream(false))).isEqualTo(content);
+            assertThat(mb.getPart("part2@example.org")).isNull();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testMultipleSources() {
+        assertThrows(IllegalArgumentException.class, () -> MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(new byte[0]))
+                .setBuffer(ByteBuffer.allocate(0))
+                .setContentType("multipart/related; boundary=" + BOUNDARY)
+                .build());
+    }
+}
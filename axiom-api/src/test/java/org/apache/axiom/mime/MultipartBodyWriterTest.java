@@ -21,8 +21,12 @@ package org.apache.axiom.mime;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.blob.Blobs;
 import org.apache.axiom.util.UIDGenerator;
 
 import jakarta.mail.internet.MimeBodyPart;
@@ -58,4 +62,39 @@ public class MultipartBodyWriterTest extends TestCase {
     public void testBase64() throws Exception {
         test(ContentTransferEncoding.BASE64);
     }
+
+    public void testGetLength() throws Exception {
+        Random random = new Random(42);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MultipartBodyWriter mpw = new MultipartBodyWriter(baos, UIDGenerator.generateMimeBoundary());
+        long expectedLength = 0;
+        ContentTransferEncoding[] encodings = { ContentTransferEncoding.BINARY, ContentTransferEncoding.BASE64 };
+        List<Header> extraHeaders = Collections.singletonList(new Header("X-Custom", "value"));
+        for (int size=0; size<10; size++) {
+            for (ContentTransferEncoding encoding : encodings) {
+                byte[] content = new byte[size * 1000 + size];
+                random.nextBytes(content);
+                Blob blob = Blobs.createBlob(content);
+                ContentType contentType = size % 2 == 0 ? null : new ContentType(MediaType.APPLICATION_OCTET_STREAM);
+                String contentID = size % 3 == 0 ? null : UIDGenerator.generateContentId();
+                expectedLength += mpw.getPartLength(blob, contentType, encoding, contentID, extraHeaders);
+                mpw.writePart(blob, contentType, encoding, contentID, extraHeaders);
+            }
+        }
+        expectedLength += mpw.getCompleteLength();
+        mpw.complete();
+        assertEquals(expectedLength, baos.size());
+    }
+
+    public void testGetLengthUnknown() throws Exception {
+        MultipartBodyWriter mpw = new MultipartBodyWriter(new ByteArrayOutputStream(), "boundary");
+        assertEquals(-1, mpw.getPartLength(null, ContentTransferEncoding.BINARY, null, null, -1));
+        ContentTransferEncoding custom = new ContentTransferEncoding("x-custom") {
+            @Override
+            public OutputStream encode(OutputStream out) {
+                return out;
+            }
+        };
+        assertEquals(-1, mpw.getPartLength(null, custom, null, null, 100));
+    }
 }
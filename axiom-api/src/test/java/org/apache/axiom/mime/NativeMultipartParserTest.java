@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Random;
+
+import org.apache.axiom.util.UIDGenerator;
+import org.apache.commons.io.IOUtils;
+
+import junit.framework.TestCase;
+
+public class NativeMultipartParserTest extends TestCase {
+    /**
+     * Input stream that returns at most a few bytes per read operation, so that boundaries and
+     * headers are split across buffer refills.
+     */
+    private static class TrickleInputStream extends FilterInputStream {
+        private final Random random = new Random(1234);
+
+        TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+        }
+    }
+
+    private static MultipartBody parse(InputStream in, String boundary) {
+        return MultipartBody.builder()
+                .setInputStream(in)
+                .setContentType("multipart/related; boundary=\"" + boundary + "\"")
+                .setNativeParser(true)
+                .build();
+    }
+
+    private static MultipartBody parse(String message, String boundary) {
+        return parse(new ByteArrayInputStream(message.getBytes(StandardCharsets.ISO_8859_1)), boundary);
+    }
+
+    private void testRoundTrip(boolean trickle) throws Exception {
+        String boundary = UIDGenerator.generateMimeBoundary();
+        byte[] boundaryBytes = boundary.getBytes(StandardCharsets.US_ASCII);
+        Random random = new Random(42);
+        int[] sizes = { 0, 1, 100, 65536, 65537, 200000 };
+        byte[][] contents = new byte[sizes.length][];
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MultipartBodyWriter mpw = new MultipartBodyWriter(baos, boundary);
+        for (int i=0; i<sizes.length; i++) {
+            byte[] content = new byte[sizes[i]];
+            random.nextBytes(content);
+            // Insert partial delimiters to exercise the search algorithm
+            for (int j=0; j+boundaryBytes.length+4 <= content.length; j+=1000) {
+                content[j] = '\r';
+                content[j+1] = '\n';
+                content[j+2] = '-';
+                content[j+3] = '-';
+                System.arraycopy(boundaryBytes, 0, content, j+4, boundaryBytes.length-1);
+                content[j+3+boundaryBytes.length] = (byte)~boundaryBytes[boundaryBytes.length-1];
+            }
+            contents[i] = content;
+            OutputStream out = mpw.writePart(ContentType.builder().setMediaType(MediaType.APPLICATION_OCTET_STREAM).build(),
+                    i % 2 == 0 ? ContentTransferEncoding.BINARY : ContentTransferEncoding.BASE64, "part" + i + "@example.org", null);
+            out.write(content);
+            out.close();
+        }
+        mpw.complete();
+        InputStream in = new ByteArrayInputStream(baos.toByteArray());
+        if (trickle) {
+            in = new TrickleInputStream(in);
+        }
+        MultipartBody mb = parse(in, boundary);
+        int i = 0;
+        for (Part part : mb) {
+            assertThat(part.getContentID()).isEqualTo("part" + i + "@example.org");
+            assertThat(IOUtils.toByteArray(part.getInputStream(i % 3 == 0))).isEqualTo(contents[i]);
+            i++;
+        }
+        assertThat(i).isEqualTo(sizes.length);
+    }
+
+    public void testRoundTrip() throws Exception {
+        testRoundTrip(false);
+    }
+
+    public void testRoundTripTrickle() throws Exception {
+        testRoundTrip(true);
+    }
+
+    public void testSkipParts() throws Exception {
+        String message = "--b\r\nContent-ID: <p1>\r\n\r\nfirst\r\n--b\r\nContent-ID: <p2>\r\n\r\nsecond\r\n--b--\r\n";
+        MultipartBody mb = parse(message, "b");
+        Part part = mb.getPart("p2");
+        assertThat(IOUtils.toString(part.getInputStream(false), StandardCharsets.US_ASCII)).isEqualTo("second");
+        assertThat(mb.getPartCount()).isEqualTo(2);
+    }
+
+    public void testDiscard() throws Exception {
+        String message = "--b\r\nContent-ID: <p1>\r\n\r\nfirst\r\n--b\r\nContent-ID: <p2>\r\n\r\nsecond\r\n--b--\r\n";
+        MultipartBody mb = parse(message, "b");
+        mb.getFirstPart().discard();
+        assertThat(IOUtils.toString(mb.getPart("p2").getInputStream(false), StandardCharsets.US_ASCII)).isEqualTo("second");
+    }
+
+    public void testPreambleAndEpilogue() throws Exception {
+        String message = "This is the preamble\r\n--b\r\nContent-ID: <p1>\r\n\r\ncontent\r\n--b--\r\nThis is the epilogue";
+        MultipartBody mb = parse(message, "b");
+        assertThat(IOUtils.toString(mb.getPart("p1").getInputStream(false), StandardCharsets.US_ASCII)).isEqualTo("content");
+        assertThat(mb.getPartCount()).isEqualTo(1);
+    }
+
+    public void testTransportPadding() throws Exception {
+        String message = "--b \t\r\nContent-ID: <p1>\r\n\r\ncontent\r\n--b--";
+        MultipartBody mb = parse(message, "b");
+        assertThat(IOUtils.toString(mb.getPart("p1").getInputStream(false), StandardCharsets.US_ASCII)).isEqualTo("content");
+    }
+
+    public void testHeaders() throws Exception {
+        String message = "--b\r\nContent-ID: <p1>\r\nX-Folded: first\r\n\tsecond\r\nX-Empty:\r\nX-Spaces :  value\r\n\r\ncontent\r\n--b--";
+        Part part = parse(message, "b").getFirstPart();
+        assertThat(part.getHeaders()).hasSize(4);
+        assertThat(part.getHeader("x-folded")).isEqualTo("first\tsecond");
+        assertThat(part.getHeader("X-Empty")).isEqualTo("");
+        assertThat(part.getHeader("X-Spaces")).isEqualTo("value");
+    }
+
+    public void testQuotedPrintable() throws Exception {
+        String message = "--b\r\nContent-ID: <p1>\r\nContent-Transfer-Encoding: quoted-printable\r\n\r\na=3Db=\r\nc\r\n--b--";
+        MultipartBody mb = parse(message, "b");
+        assertThat(IOUtils.toString(mb.getPart("p1").getInputStream(false), StandardCharsets.US_ASCII)).isEqualTo("a=bc");
+    }
+
+    public void testMissingBoundaryParameter() {
+        assertThrows(MIMEException.class, () -> MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(new byte[0]))
+                .setContentType("multipart/related")
+                .setNativeParser(true)
+                .build());
+    }
+
+    public void testTruncatedContent() {
+        MultipartBody mb = parse("--b\r\nContent-ID: <p1>\r\n\r\ncontent", "b");
+        assertThrows(MIMEException.class, () -> mb.getFirstPart().fetch());
+    }
+
+    public void testTruncatedHeaders() {
+        MultipartBody mb = parse("--b\r\nContent-ID: <p1>\r\n", "b");
+        assertThrows(MIMEException.class, mb::getFirstPart);
+    }
+
+    public void testInvalidHeader() {
+        MultipartBody mb = parse("--b\r\nContent-ID <p1>\r\n\r\ncontent\r\n--b--", "b");
+        assertThrows(MIMEException.class, mb::getFirstPart);
+    }
+
+    private void testContentLength(boolean trickle) throws Exception {
+        String boundary = UIDGenerator.generateMimeBoundary();
+        Random random = new Random(42);
+        int[] sizes = { 0, 1, 100, 8192, 65536, 65537, 200000 };
+        byte[][] contents = new byte[sizes.length][];
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MultipartBodyWriter mpw = new MultipartBodyWriter(baos, boundary);
+        for (int i=0; i<sizes.length; i++) {
+            byte[] content = new byte[sizes[i]];
+            random.nextBytes(content);
+            contents[i] = content;
+            OutputStream out = mpw.writePart(ContentType.builder().setMediaType(MediaType.APPLICATION_OCTET_STREAM).build(),
+                    ContentTransferEncoding.BINARY, "part" + i + "@example.org",
+                    i == 2 ? null : Collections.singletonList(new Header(Header.CONTENT_LENGTH, String.valueOf(sizes[i]))));
+            out.write(content);
+            out.close();
+        }
+        mpw.complete();
+        InputStream in = new ByteArrayInputStream(baos.toByteArray());
+        if (trickle) {
+            in = new TrickleInputStream(in);
+        }
+        MultipartBody mb = MultipartBody.builder()
+                .setInputStream(in)
+                .setContentType("multipart/related; boundary=\"" + boundary + "\"")
+                .setNativeParser(true)
+                .setTrustPartContentLength(true)
+                .build();
+        int i = 0;
+        for (Part part : mb) {
+            if (i == 3) {
+                // Skip the content of this part
+                i++;
+                continue;
+            }
+            assertThat(part.getContentID()).isEqualTo("part" + i + "@example.org");
+            assertThat(IOUtils.toByteArray(part.getInputStream(i % 3 == 0))).isEqualTo(contents[i]);
+            i++;
+        }
+        assertThat(i).isEqualTo(sizes.length);
+    }
+
+    public void testContentLength() throws Exception {
+        testContentLength(false);
+    }
+
+    public void testContentLengthTrickle() throws Exception {
+        testContentLength(true);
+    }
+
+    public void testContentLengthSingleByteReads() throws Exception {
+        String message = "--b\r\nContent-ID: <p1>\r\nContent-Length: 7\r\n\r\ncontent\r\n--b--";
+        MultipartBody mb = MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(message.getBytes(StandardCharsets.ISO_8859_1)))
+                .setContentType("multipart/related; boundary=b")
+                .setNativeParser(true)
+                .setTrustPartContentLength(true)
+                .build();
+        InputStream in = mb.getPart("p1").getInputStream(false);
+        StringBuilder buffer = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            buffer.append((char)c);
+        }
+        assertThat(buffer.toString()).isEqualTo("content");
+    }
+
+    public void testContentLengthMismatch() {
+        String message = "--b\r\nContent-ID: <p1>\r\nContent-Length: 5\r\n\r\ncontent\r\n--b--";
+        MultipartBody mb = MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(message.getBytes(StandardCharsets.ISO_8859_1)))
+                .setContentType("multipart/related; boundary=b")
+                .setNativeParser(true)
+                .setTrustPartContentLength(true)
+                .build();
+        assertThrows(MIMEException.class, () -> mb.getFirstPart().fetch());
+    }
+
+    public void testTrustPartContentLengthRequiresNativeParser() {
+        assertThrows(IllegalArgumentException.class, () -> MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(new byte[0]))
+                .setContentType("multipart/related; boundary=b")
+                .setTrustPartContentLength(true)
+                .build());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.base64;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.codec.binary.Base64;
+
+public class Base64EncodingOutputStreamTest extends TestCase {
+    private static void write(AbstractBase64EncodingOutputStream out, byte[] data, Random random) throws Exception {
+        int off = 0;
+        while (off < data.length) {
+            int len = Math.min(data.length - off, random.nextInt(3000));
+            if (len == 1) {
+                out.write(data[off]);
+            } else {
+                out.write(data, off, len);
+            }
+            off += len;
+        }
+        out.complete();
+    }
+    
+    public void testOutputStream() throws Exception {
+        Random random = new Random(5678);
+        for (int len=0; len<10000; len+=97) {
+            byte[] data = new byte[len];
+            random.nextBytes(data);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            write(new Base64EncodingOutputStream(baos, 64), data, random);
+            assertThat(new String(baos.toByteArray(), StandardCharsets.US_ASCII)).isEqualTo(Base64.encodeBase64String(data));
+        }
+    }
+    
+    public void testWriterOutputStream() throws Exception {
+        Random random = new Random(8765);
+        for (int len=0; len<10000; len+=97) {
+            byte[] data = new byte[len];
+            random.nextBytes(data);
+            StringWriter sw = new StringWriter();
+            write(new Base64EncodingWriterOutputStream(sw, 64), data, random);
+            assertThat(sw.toString()).isEqualTo(Base64.encodeBase64String(data));
+        }
+    }
+    
+    public void testMinimumBufferSize() throws Exception {
+        Random random = new Random(4321);
+        byte[] data = new byte[1000];
+        random.nextBytes(data);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        write(new Base64EncodingOutputStream(baos, 4), data, random);
+        assertThat(new String(baos.toByteArray(), StandardCharsets.US_ASCII)).isEqualTo(Base64.encodeBase64String(data));
+        StringWriter sw = new StringWriter();
+        write(new Base64EncodingWriterOutputStream(sw, 4), data, random);
+        assertThat(sw.toString()).isEqualTo(Base64.encodeBase64String(data));
+    }
+    
+    public void testInvalidBufferSize() {
+        try {
+            new Base64EncodingOutputStream(new ByteArrayOutputStream(), 3);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+        try {
+            new Base64EncodingWriterOutputStream(new StringWriter(), 3);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.axiom.blob.Blobs;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+
+/**
+ * Generates the messages used by the benchmarks. Messages are generated deterministically so that
+ * results are comparable between runs and between releases.
+ */
+public final class Corpus {
+    private static final String NS = "urn:example:orders";
+
+    private Corpus() {}
+
+    /**
+     * Create a SOAP 1.1 envelope. If {@code withAttachments} is {@code true}, the envelope contains
+     * binary nodes (marked as optimizable) with the number and size of attachments specified by
+     * {@code size}.
+     *
+     * @param size the size of the message
+     * @param withAttachments whether to include binary content
+     * @return the envelope
+     */
+    public static SOAPEnvelope createEnvelope(MessageSize size, boolean withAttachments) {
+        SOAPFactory factory = OMAbstractFactory.getSOAP11Factory();
+        SOAPEnvelope envelope = factory.getDefaultEnvelope();
+        OMNamespace ns = factory.createOMNamespace(NS, "o");
+        OMElement orders = factory.createOMElement("orders", ns, envelope.getBody());
+        Random random = new Random(size.ordinal());
+        for (int i = 0; i < size.getItemCount(); i++) {
+            OMElement order = factory.createOMElement("order", ns, orders);
+            order.addAttribute("id", String.valueOf(i), null);
+            factory.createOMElement("customer", ns, order).setText("Customer #" + i);
+            factory.createOMElement("amount", ns, order)
+                    .setText(String.valueOf(random.nextInt(100000) / 100.0));
+            factory.createOMElement("note", ns, order)
+                    .setText("Deliver to <dock " + (i % 7) + "> & notify \"shipping\"");
+        }
+        if (withAttachments) {
+            for (int i = 0; i < size.getAttachmentCount(); i++) {
+                byte[] data = new byte[size.getAttachmentSize()];
+                random.nextBytes(data);
+                factory.createOMElement("document", ns, orders)
+                        .addChild(factory.createOMText(Blobs.createBlob(data), true));
+            }
+        }
+        return envelope;
+    }
+
+    /**
+     * Create a plain SOAP 1.1 message.
+     *
+     * @param size the size of the message
+     * @return the UTF-8 encoded message
+     */
+    public static byte[] createSOAPMessage(MessageSize size) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            createEnvelope(size, false).serialize(out, false);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Create an MTOM message.
+     *
+     * @param size the size of the message
+     * @return the message
+     */
+    public static MTOMMessage createMTOMMessage(MessageSize size) {
+        OMOutputFormat format = new OMOutputFormat();
+        format.setDoOptimize(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            createEnvelope(size, true).serialize(out, format, false);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return new MTOMMessage(format.getContentType(), out.toByteArray());
+    }
+}
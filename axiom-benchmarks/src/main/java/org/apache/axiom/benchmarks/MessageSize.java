@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+/** The sizes of the messages in the benchmark corpus. */
+public enum MessageSize {
+    /** A typical request with a handful of elements and a single small attachment. */
+    SMALL(10, 1, 4 * 1024),
+
+    /** A message of about 100 KB with a few medium sized attachments. */
+    MEDIUM(1000, 4, 256 * 1024),
+
+    /** A message of about 10 MB with a few large attachments. */
+    HUGE(100000, 4, 8 * 1024 * 1024);
+
+    private final int itemCount;
+    private final int attachmentCount;
+    private final int attachmentSize;
+
+    MessageSize(int itemCount, int attachmentCount, int attachmentSize) {
+        this.itemCount = itemCount;
+        this.attachmentCount = attachmentCount;
+        this.attachmentSize = attachmentSize;
+    }
+
+    /**
+     * Get the number of repeated elements in the SOAP body.
+     *
+     * @return the number of elements
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Get the number of attachments in the MTOM variant of the message.
+     *
+     * @return the number of attachments
+     */
+    public int getAttachmentCount() {
+        return attachmentCount;
+    }
+
+    /**
+     * Get the size of each attachment in the MTOM variant of the message.
+     *
+     * @return the attachment size in bytes
+     */
+    public int getAttachmentSize() {
+        return attachmentSize;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.mime.MultipartBody;
+import org.apache.axiom.mime.Part;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks {@link MultipartBody} parsing of MTOM messages. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultipartBodyBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public MessageSize size;
+
+    private MTOMMessage message;
+
+    @Setup
+    public void setUp() {
+        message = Corpus.createMTOMMessage(size);
+    }
+
+    private MultipartBody createMultipartBody() {
+        return MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(message.getContent()))
+                .setContentType(message.getContentType())
+                .build();
+    }
+
+    @Benchmark
+    public long fetchAllParts() {
+        long totalSize = 0;
+        for (Part part : createMultipartBody()) {
+            part.fetch();
+            totalSize += part.getBlob().getSize();
+        }
+        return totalSize;
+    }
+
+    @Benchmark
+    public SOAPEnvelope buildSOAPModel() {
+        SOAPEnvelope envelope =
+                OMXMLBuilderFactory.createSOAPModelBuilder(createMultipartBody()).getSOAPEnvelope();
+        envelope.build();
+        return envelope;
+    }
+}
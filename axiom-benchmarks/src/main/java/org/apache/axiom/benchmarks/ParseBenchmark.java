@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPModelBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link OMXMLBuilderFactory#createOMBuilder(java.io.InputStream)} and {@link
+ * OMXMLBuilderFactory#createSOAPModelBuilder(java.io.InputStream, String)}, both in deferred mode
+ * (only the part of the tree required to locate the first body element is built) and with the tree
+ * fully built.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public MessageSize size;
+
+    private byte[] message;
+
+    @Setup
+    public void setUp() {
+        message = Corpus.createSOAPMessage(size);
+    }
+
+    @Benchmark
+    public OMElement omDeferred() {
+        OMXMLParserWrapper builder =
+                OMXMLBuilderFactory.createOMBuilder(new ByteArrayInputStream(message));
+        OMElement element = builder.getDocumentElement().getFirstElement();
+        builder.close();
+        return element;
+    }
+
+    @Benchmark
+    public OMElement omFullyBuilt() {
+        OMElement element =
+                OMXMLBuilderFactory.createOMBuilder(new ByteArrayInputStream(message))
+                        .getDocumentElement();
+        element.build();
+        return element;
+    }
+
+    @Benchmark
+    public OMElement soapDeferred() {
+        SOAPModelBuilder builder =
+                OMXMLBuilderFactory.createSOAPModelBuilder(
+                        new ByteArrayInputStream(message), "UTF-8");
+        OMElement element = builder.getSOAPEnvelope().getBody().getFirstElement();
+        builder.close();
+        return element;
+    }
+
+    @Benchmark
+    public SOAPEnvelope soapFullyBuilt() {
+        SOAPEnvelope envelope =
+                OMXMLBuilderFactory.createSOAPModelBuilder(
+                                new ByteArrayInputStream(message), "UTF-8")
+                        .getSOAPEnvelope();
+        envelope.build();
+        return envelope;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link org.apache.axiom.om.OMContainer#serialize(java.io.OutputStream, boolean)},
+ * which goes through {@code org.apache.axiom.core.stream.serializer.Serializer}. The {@code
+ * passThrough} benchmark measures the typical gateway case where an incoming message is parsed and
+ * serialized again without building the tree.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializeBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public MessageSize size;
+
+    private SOAPEnvelope envelope;
+    private byte[] message;
+
+    @Setup
+    public void setUp() {
+        envelope = Corpus.createEnvelope(size, false);
+        message = Corpus.createSOAPMessage(size);
+    }
+
+    @Benchmark
+    public long serialize() throws Exception {
+        NullOutputStream out = new NullOutputStream();
+        envelope.serialize(out, true);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long serializeWithFormat() throws Exception {
+        NullOutputStream out = new NullOutputStream();
+        OMOutputFormat format = new OMOutputFormat();
+        format.setCharSetEncoding("UTF-8");
+        envelope.serialize(out, format, true);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long passThrough() throws Exception {
+        NullOutputStream out = new NullOutputStream();
+        OMXMLBuilderFactory.createSOAPModelBuilder(new ByteArrayInputStream(message), "UTF-8")
+                .getSOAPEnvelope()
+                .serialize(out, false);
+        return out.getCount();
+    }
+}
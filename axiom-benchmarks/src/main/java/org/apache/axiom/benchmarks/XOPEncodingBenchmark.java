@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks MTOM serialization, i.e. the output produced by {@code XOPEncodingFilterHandler} and
+ * {@link org.apache.axiom.om.impl.OMMultipartWriter}. For comparison, {@code inline} serializes the
+ * same envelope with the binary content encoded as base64.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XOPEncodingBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public MessageSize size;
+
+    private SOAPEnvelope envelope;
+
+    @Setup
+    public void setUp() {
+        envelope = Corpus.createEnvelope(size, true);
+    }
+
+    @Benchmark
+    public long mtom() throws Exception {
+        NullOutputStream out = new NullOutputStream();
+        OMOutputFormat format = new OMOutputFormat();
+        format.setDoOptimize(true);
+        envelope.serialize(out, format, true);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long inline() throws Exception {
+        NullOutputStream out = new NullOutputStream();
+        envelope.serialize(out, new OMOutputFormat(), true);
+        return out.getCount();
+    }
+}
@@ -175,7 +175,7 @@ public class CommonUtils {
      */
     public static boolean isTextualPart(String contentType) {
         try {
-            return new ContentType(contentType).isTextual();
+            return ContentType.parse(contentType).isTextual();
         } catch (ParseException ex) {
             return false;
         }
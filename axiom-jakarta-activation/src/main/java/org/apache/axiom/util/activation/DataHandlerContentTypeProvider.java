@@ -51,7 +51,7 @@ public final class DataHandlerContentTypeProvider implements ContentTypeProvider
             return null;
         }
         try {
-            return new ContentType(contentType);
+            return ContentType.parse(contentType);
         } catch (ParseException ex) {
             log.warn("Couldn't parse content type returned by DataHandler", ex);
             return null;
@@ -108,7 +108,7 @@ public class Attachments implements OMAttachmentAccessor {
         if (fileCacheEnable) {
             WritableBlobFactory<?> tempFileBlobFactory = new LegacyTempFileBlobFactory(this, attachmentRepoDir);
             if (fileStorageThreshold > 0) {
-                attachmentBlobFactory = () -> Blobs.createOverflowableBlob(fileStorageThreshold, tempFileBlobFactory);
+                attachmentBlobFactory = Blobs.createOverflowableBlobFactory(fileStorageThreshold, tempFileBlobFactory);
             } else {
                 attachmentBlobFactory = tempFileBlobFactory;
             }
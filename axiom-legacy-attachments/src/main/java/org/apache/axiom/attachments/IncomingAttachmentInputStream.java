@@ -23,11 +23,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class IncomingAttachmentInputStream extends InputStream {
     private Map<String,String> _headers = null;
 
-    private Map<String,String> _headersLowerCase = null;
+    /**
+     * The same headers as {@link #_headers}, but with case-insensitive lookup. As for
+     * {@link #_headers}, the last value wins if a header occurs more than once.
+     */
+    private Map<String,String> _headersCaseInsensitive = null;
     
     private InputStream _stream = null;
     private IncomingAttachmentStreams parentContainer;
@@ -60,10 +65,10 @@ public class IncomingAttachmentInputStream extends InputStream {
     public void addHeader(String name, String value) {
         if (_headers == null) {
             _headers = new HashMap<String,String>();
-            _headersLowerCase = new HashMap<String,String>();
+            _headersCaseInsensitive = new TreeMap<String,String>(String.CASE_INSENSITIVE_ORDER);
         }
         _headers.put(name, value);
-        _headersLowerCase.put(name.toLowerCase(), value);
+        _headersCaseInsensitive.put(name, value);
     }
 
     /**
@@ -73,11 +78,7 @@ public class IncomingAttachmentInputStream extends InputStream {
      * @return The header found or null if not found.
      */
     public String getHeader(String name) {
-        Object header = null;
-        if (_headersLowerCase == null || (header = _headersLowerCase.get(name.toLowerCase())) == null) {
-            return null;
-        }
-        return header.toString();
+        return _headersCaseInsensitive == null ? null : _headersCaseInsensitive.get(name);
     }
 
     /** @return The header with HTTPConstants.HEADER_CONTENT_ID as the key. */
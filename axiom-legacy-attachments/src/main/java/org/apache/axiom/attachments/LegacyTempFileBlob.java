@@ -21,12 +21,18 @@ package org.apache.axiom.attachments;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 import jakarta.activation.DataSource;
 
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
 import org.apache.axiom.attachments.lifecycle.impl.FileAccessor;
 import org.apache.axiom.blob.AbstractWritableBlob;
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.util.io.IOUtils;
 
 final class LegacyTempFileBlob extends AbstractWritableBlob {
     private final LifecycleManager lifecycleManager;
@@ -49,6 +55,21 @@ final class LegacyTempFileBlob extends AbstractWritableBlob {
         return fileAccessor.getInputStream();
     }
 
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        IOUtils.copy(fileAccessor.getFile(), out);
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        return FileChannel.open(fileAccessor.getFile().toPath(), StandardOpenOption.READ);
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        IOUtils.copy(fileAccessor.getFile(), out);
+    }
+
     DataSource getDataSource(String contentType) {
         CachedFileDataSource ds = new CachedFileDataSource(fileAccessor.getFile());
         ds.setContentType(contentType);
@@ -76,6 +76,7 @@ final class MultipartBodyAdapter extends AttachmentsDelegate implements PartCrea
                 .setInputStream(inStream)
                 .setContentType(contentTypeString)
                 .setAttachmentBlobFactory(attachmentBlobFactory)
+                .setContentLength(contentLength > 0 ? contentLength : -1)
                 .setPartBlobFactory(new PartDataHandlerBlobFactory() {
                         @Override
                         protected PartDataHandler createDataHandler(Part part) {
@@ -272,6 +272,11 @@ public class AttachmentsTest extends AbstractTestCase {
         // Test if a adding/getting a header works
         dataIs.addHeader("new-header", "test-value");
         assertEquals("test-value", dataIs.getHeader("new-header"));
+
+        // If a header is added more than once, the last value wins (consistently with getHeaders)
+        dataIs.addHeader("Content-Type", "text/plain");
+        assertEquals("text/plain", dataIs.getContentType());
+        assertEquals("text/plain", dataIs.getHeaders().get("Content-Type"));
     }
     
     public void testGetIncomingAttachmentStreams2() throws Exception {
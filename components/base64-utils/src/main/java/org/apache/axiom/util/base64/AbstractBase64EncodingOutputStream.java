@@ -72,10 +72,11 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
                 rest = 0;
             }
         }
-        while (len >= 3) {
-            encode(b, off, 3);
-            off += 3;
-            len -= 3;
+        int blockLength = len - len % 3;
+        if (blockLength > 0) {
+            doWrite(b, off, blockLength);
+            off += blockLength;
+            len -= blockLength;
         }
         while (len > 0) {
             in[rest++] = b[off++];
@@ -132,6 +133,117 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
         doWrite(out);
     }
 
+    /**
+     * Encode a block of data using a table driven algorithm that processes 6 bytes per iteration.
+     * 
+     * @param src
+     *            the data to encode
+     * @param off
+     *            the offset of the data
+     * @param len
+     *            the length of the data; must be a multiple of 3
+     * @param dest
+     *            the buffer to write the base64 encoded data to; it must have space for
+     *            <code>len/3*4</code> bytes
+     * @param destOff
+     *            the offset in the buffer
+     * @return the number of bytes written to the buffer
+     */
+    protected static int encode(byte[] src, int off, int len, byte[] dest, int destOff) {
+        final byte[] hi = Base64Constants.S_BASE64CHAR_HI;
+        final byte[] lo = Base64Constants.S_BASE64CHAR_LO;
+        int end = off + len;
+        int d = destOff;
+        for (int max = end - 6; off <= max; off += 6) {
+            long bits = (src[off] & 0xffL) << 40
+                    | (src[off + 1] & 0xffL) << 32
+                    | (src[off + 2] & 0xffL) << 24
+                    | (src[off + 3] & 0xffL) << 16
+                    | (src[off + 4] & 0xffL) << 8
+                    | (src[off + 5] & 0xffL);
+            int i0 = (int)(bits >>> 36);
+            int i1 = (int)(bits >>> 24) & 0xfff;
+            int i2 = (int)(bits >>> 12) & 0xfff;
+            int i3 = (int)bits & 0xfff;
+            dest[d] = hi[i0];
+            dest[d + 1] = lo[i0];
+            dest[d + 2] = hi[i1];
+            dest[d + 3] = lo[i1];
+            dest[d + 4] = hi[i2];
+            dest[d + 5] = lo[i2];
+            dest[d + 6] = hi[i3];
+            dest[d + 7] = lo[i3];
+            d += 8;
+        }
+        if (off < end) {
+            int bits = (src[off] & 0xff) << 16 | (src[off + 1] & 0xff) << 8 | (src[off + 2] & 0xff);
+            int i0 = bits >>> 12;
+            int i1 = bits & 0xfff;
+            dest[d] = hi[i0];
+            dest[d + 1] = lo[i0];
+            dest[d + 2] = hi[i1];
+            dest[d + 3] = lo[i1];
+            d += 4;
+        }
+        return d - destOff;
+    }
+
+    /**
+     * Encode a block of data into a character buffer. This method is identical to
+     * {@link #encode(byte[], int, int, byte[], int)}, except for the type of the buffer.
+     * 
+     * @param src
+     *            the data to encode
+     * @param off
+     *            the offset of the data
+     * @param len
+     *            the length of the data; must be a multiple of 3
+     * @param dest
+     *            the buffer to write the base64 encoded data to; it must have space for
+     *            <code>len/3*4</code> characters
+     * @param destOff
+     *            the offset in the buffer
+     * @return the number of characters written to the buffer
+     */
+    protected static int encode(byte[] src, int off, int len, char[] dest, int destOff) {
+        final byte[] hi = Base64Constants.S_BASE64CHAR_HI;
+        final byte[] lo = Base64Constants.S_BASE64CHAR_LO;
+        int end = off + len;
+        int d = destOff;
+        for (int max = end - 6; off <= max; off += 6) {
+            long bits = (src[off] & 0xffL) << 40
+                    | (src[off + 1] & 0xffL) << 32
+                    | (src[off + 2] & 0xffL) << 24
+                    | (src[off + 3] & 0xffL) << 16
+                    | (src[off + 4] & 0xffL) << 8
+                    | (src[off + 5] & 0xffL);
+            int i0 = (int)(bits >>> 36);
+            int i1 = (int)(bits >>> 24) & 0xfff;
+            int i2 = (int)(bits >>> 12) & 0xfff;
+            int i3 = (int)bits & 0xfff;
+            dest[d] = (char)hi[i0];
+            dest[d + 1] = (char)lo[i0];
+            dest[d + 2] = (char)hi[i1];
+            dest[d + 3] = (char)lo[i1];
+            dest[d + 4] = (char)hi[i2];
+            dest[d + 5] = (char)lo[i2];
+            dest[d + 6] = (char)hi[i3];
+            dest[d + 7] = (char)lo[i3];
+            d += 8;
+        }
+        if (off < end) {
+            int bits = (src[off] & 0xff) << 16 | (src[off + 1] & 0xff) << 8 | (src[off + 2] & 0xff);
+            int i0 = bits >>> 12;
+            int i1 = bits & 0xfff;
+            dest[d] = (char)hi[i0];
+            dest[d + 1] = (char)lo[i0];
+            dest[d + 2] = (char)hi[i1];
+            dest[d + 3] = (char)lo[i1];
+            d += 4;
+        }
+        return d - destOff;
+    }
+
     @Override
     public final void flush() throws IOException {
         if (!ignoreFlush) {
@@ -154,6 +266,28 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
      * @throws IOException if an I/O error occurs
      */
     protected abstract void doWrite(byte[] b) throws IOException;
+
+    /**
+     * Encode and write a block of data. The default implementation encodes each group of 3 bytes
+     * separately and passes the result to {@link #doWrite(byte[])}. Implementations that buffer
+     * the encoded data should override this method to encode the data directly into their buffer
+     * using {@link #encode(byte[], int, int, byte[], int)} or
+     * {@link #encode(byte[], int, int, char[], int)}.
+     * 
+     * @param b
+     *            the data to encode
+     * @param off
+     *            the offset of the data
+     * @param len
+     *            the length of the data; always a multiple of 3
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        for (int end = off + len; off < end; off += 3) {
+            encode(b, off, 3);
+        }
+    }
     
     /**
      * Write any pending data to the underlying stream, if applicable.
@@ -30,6 +30,16 @@ class Base64Constants {
 
     static final byte S_BASE64PAD = '=';
 
+    /**
+     * The first of the two base64 characters encoding a 12 bit value, indexed by that value.
+     */
+    static final byte[] S_BASE64CHAR_HI = new byte[4096];
+
+    /**
+     * The second of the two base64 characters encoding a 12 bit value, indexed by that value.
+     */
+    static final byte[] S_BASE64CHAR_LO = new byte[4096];
+
     /**
      * Used in {@link #S_DECODETABLE} to indicate that a character is the padding character.
      */
@@ -48,6 +58,10 @@ class Base64Constants {
     static final byte[] S_DECODETABLE = new byte[128];
     
     static {
+        for (int i = 0; i < 4096; i++) {
+            S_BASE64CHAR_HI[i] = S_BASE64CHAR[i >> 6];
+            S_BASE64CHAR_LO[i] = S_BASE64CHAR[i & 0x3f];
+        }
         for (int i = 0; i < S_DECODETABLE.length; i++) {
             S_DECODETABLE[i] = INVALID;
         }
@@ -36,9 +36,13 @@ public class Base64EncodingOutputStream extends AbstractBase64EncodingOutputStre
      * Constructor.
      * 
      * @param parent the stream to write the encoded data to
-     * @param bufferSize the buffer size to use
+     * @param bufferSize the buffer size to use; must be at least 4
+     * @throws IllegalArgumentException if the buffer size is less than 4
      */
     public Base64EncodingOutputStream(OutputStream parent, int bufferSize) {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("bufferSize must be at least 4");
+        }
         this.parent = parent;
         buffer = new byte[bufferSize];
     }
@@ -61,6 +65,19 @@ public class Base64EncodingOutputStream extends AbstractBase64EncodingOutputStre
         len += 4;
     }
     
+    @Override
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (buffer.length - this.len < 4) {
+                flushBuffer();
+            }
+            int blockLength = Math.min(len, (buffer.length - this.len) / 4 * 3);
+            this.len += encode(b, off, blockLength, buffer, this.len);
+            off += blockLength;
+            len -= blockLength;
+        }
+    }
+    
     @Override
     protected void flushBuffer() throws IOException {
         parent.write(buffer, 0, len);
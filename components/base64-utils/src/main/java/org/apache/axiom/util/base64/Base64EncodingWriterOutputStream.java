@@ -38,14 +38,19 @@ public class Base64EncodingWriterOutputStream extends AbstractBase64EncodingOutp
      * @param writer
      *            the stream to write the encoded data to
      * @param bufferSize
-     *            the buffer size to use
+     *            the buffer size to use; must be at least 4
      * @param ignoreFlush
      *            specifies if calls to {@link #flush()} should be ignored; see
      *            {@link AbstractBase64EncodingOutputStream#AbstractBase64EncodingOutputStream(boolean)}
      *            for more information
+     * @throws IllegalArgumentException
+     *             if the buffer size is less than 4
      */
     public Base64EncodingWriterOutputStream(Writer writer, int bufferSize, boolean ignoreFlush) {
         super(ignoreFlush);
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("bufferSize must be at least 4");
+        }
         this.writer = writer;
         buffer = new char[bufferSize];
     }
@@ -54,7 +59,8 @@ public class Base64EncodingWriterOutputStream extends AbstractBase64EncodingOutp
      * Constructor.
      * 
      * @param writer the stream to write the encoded data to
-     * @param bufferSize the buffer size to use
+     * @param bufferSize the buffer size to use; must be at least 4
+     * @throws IllegalArgumentException if the buffer size is less than 4
      */
     public Base64EncodingWriterOutputStream(Writer writer, int bufferSize) {
         this(writer, bufferSize, false);
@@ -79,6 +85,19 @@ public class Base64EncodingWriterOutputStream extends AbstractBase64EncodingOutp
         }
     }
     
+    @Override
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (buffer.length - this.len < 4) {
+                flushBuffer();
+            }
+            int blockLength = Math.min(len, (buffer.length - this.len) / 4 * 3);
+            this.len += encode(b, off, blockLength, buffer, this.len);
+            off += blockLength;
+            len -= blockLength;
+        }
+    }
+    
     @Override
     protected void flushBuffer() throws IOException {
         writer.write(buffer, 0, len);
@@ -22,6 +22,10 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.ext.io.StreamCopyException;
 
@@ -57,6 +61,60 @@ public interface Blob {
      */
     void writeTo(OutputStream out) throws StreamCopyException;
 
+    /**
+     * Open a channel to read the data in the blob. A new channel is returned each time this method
+     * is called, and the channel is positioned at the beginning of the data. Where possible (in
+     * particular for blobs that store their data in memory or in a file), the returned channel is a
+     * {@link SeekableByteChannel}.
+     *
+     * <p>The default implementation wraps the stream returned by {@link #getInputStream()}.
+     *
+     * @return the channel to read the data from; the caller is responsible for closing it
+     * @throws IOException
+     */
+    default ReadableByteChannel openChannel() throws IOException {
+        return Channels.newChannel(getInputStream());
+    }
+
+    /**
+     * Write the data to a given channel. This method can be called multiple times, i.e. it doesn't
+     * consume the content.
+     *
+     * <p>The default implementation wraps the channel in an output stream and delegates to {@link
+     * #writeTo(OutputStream)}.
+     *
+     * @param out The channel to write the data to. This method will not close the channel.
+     * @throws StreamCopyException Thrown if there is an I/O when reading the data from the blob or
+     *     when writing it to the channel. {@link StreamCopyException#getOperation()} can be used to
+     *     determine whether the failed operation was a read or a write.
+     */
+    default void writeTo(WritableByteChannel out) throws StreamCopyException {
+        writeTo(Channels.newOutputStream(out));
+    }
+
+    /**
+     * Get a blob representing a range of the data in this blob. Where possible (in particular for
+     * blobs that store their data in memory or in a file), the returned blob shares the storage of
+     * this blob, i.e. creating the slice doesn't copy any data, and skipping data in the streams
+     * returned by the slice doesn't require reading that data. The returned blob is only usable as
+     * long as this blob is; in particular it must not be used after this blob has been released.
+     *
+     * <p>The default implementation returns a blob that reads the data from the stream returned by
+     * {@link #getInputStream()}, skipping the bytes before the range.
+     *
+     * @param offset the offset of the first byte of the range
+     * @param length the number of bytes in the range
+     * @return a blob with the given size
+     * @throws IndexOutOfBoundsException if the range is not within the data of this blob
+     * @throws IllegalStateException if this is a {@link WritableBlob} that is not in state
+     *     COMMITTED
+     */
+    default Blob slice(long offset, long length) {
+        long size = getSize();
+        SlicedBlob.checkRange(size == -1 ? Long.MAX_VALUE : size, offset, length);
+        return new SlicedBlob(this, offset, length);
+    }
+
     /**
      * Get the (approximate) size of the blob. Returns -1 if the size can't be determined without
      * reading the entire blob (in which case the caller may want to use {@link
@@ -73,4 +131,24 @@ public interface Blob {
      * @return the number of bytes in the blob, or -1 if the size is not known
      */
     long getSize();
+
+    /**
+     * Get a digest or checksum of the data in the blob that has been computed while the data was
+     * written to the blob. Blobs created by a factory returned by {@link
+     * Blobs#createDigestingBlobFactory(WritableBlobFactory, String...)} support this method for the
+     * algorithms configured on the factory. This allows to get digests without reading the data a
+     * second time.
+     *
+     * <p>The default implementation returns <code>null</code>.
+     *
+     * @param algorithm the name of a {@link java.security.MessageDigest} algorithm, or {@code
+     *     CRC32} or {@code CRC32C}
+     * @return the digest (checksums are returned as 4 bytes in big-endian order), or <code>null
+     *     </code> if the digest for the given algorithm is not available
+     * @throws IllegalStateException if the digest is available, but the data has not been written
+     *     yet
+     */
+    default byte[] getDigest(String algorithm) {
+        return null;
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the total amount of memory used by {@link OverflowableBlob} instances to buffer data. Each
+ * blob has its own overflow threshold, but a large number of concurrent blobs that each stay below
+ * their threshold may still use an excessive amount of memory. A budget shared by these blobs (see
+ * {@link Blobs#createOverflowableBlob(int, WritableBlobFactory, ChunkPool, BlobMemoryBudget)})
+ * avoids this: when the budget is exhausted, blobs that need to allocate more memory transfer their
+ * data to the overflow blob early.
+ *
+ * <p>Memory is accounted for in units of the chunks allocated by the blobs and is returned to the
+ * budget when a blob is released, when it overflows or, if the application fails to release it,
+ * when the blob is garbage collected.
+ *
+ * <p>Instances of this class are thread safe.
+ */
+public final class BlobMemoryBudget {
+    private final long maxBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final LongAdder pressureSpillCount = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes the maximum number of bytes that blobs sharing this budget may buffer in
+     *     memory
+     */
+    public BlobMemoryBudget(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the maximum number of bytes that blobs sharing this budget may buffer in memory.
+     *
+     * @return the limit in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get the number of bytes currently buffered in memory by blobs sharing this budget.
+     *
+     * @return the number of bytes
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Get the number of blobs that transferred their data to the overflow blob because the budget
+     * was exhausted (and not because they exceeded their own threshold).
+     *
+     * @return the number of spills caused by memory pressure
+     */
+    public long getPressureSpillCount() {
+        return pressureSpillCount.sum();
+    }
+
+    boolean reserve(long bytes) {
+        long current;
+        do {
+            current = usedBytes.get();
+            if (current + bytes > maxBytes) {
+                return false;
+            }
+        } while (!usedBytes.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    void release(long bytes) {
+        usedBytes.addAndGet(-bytes);
+    }
+
+    void recordPressureSpill() {
+        pressureSpillCount.increment();
+    }
+}
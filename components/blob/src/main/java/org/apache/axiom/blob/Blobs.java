@@ -19,9 +19,15 @@
 package org.apache.axiom.blob;
 
 import java.io.File;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 
 /** Contains factory methods to create various types of blobs. */
 public final class Blobs {
+    /** Cleaner used to release resources held by blobs that have not been released explicitly. */
+    static final Cleaner cleaner = Cleaner.create();
+
     private Blobs() {}
 
     /**
@@ -34,6 +40,26 @@ public final class Blobs {
         return new ByteArrayBlob(data);
     }
 
+    /**
+     * Create a blob that shares the content of a sequence of byte buffers, i.e. the concatenation
+     * of the bytes between the current position and limit of each buffer. No data is copied; in
+     * particular this can be used to wrap one or more {@link MappedByteBuffer} instances. Changes
+     * to the position or limit of the buffers after this method returns don't affect the blob, but
+     * changes to their content do.
+     *
+     * @param buffers the buffers
+     * @return the blob
+     */
+    public static Blob createBlob(ByteBuffer... buffers) {
+        ByteBuffer[] slices = new ByteBuffer[buffers.length];
+        long size = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            slices[i] = buffers[i].slice();
+            size += slices[i].remaining();
+        }
+        return ByteBufferBlob.slice(slices, 0, size);
+    }
+
     /**
      * Create a {@link MemoryBlob} instance.
      *
@@ -43,6 +69,49 @@ public final class Blobs {
         return new MemoryBlobImpl();
     }
 
+    /**
+     * Create a {@link MemoryBlob} instance that allocates its buffers from the given pool. The
+     * buffers are returned to the pool when the blob is released.
+     *
+     * @param pool the pool to allocate buffers from
+     * @return the blob
+     */
+    public static MemoryBlob createMemoryBlob(ChunkPool pool) {
+        return new MemoryBlobImpl(pool);
+    }
+
+    /**
+     * Create a {@link MemoryBlob} instance with a given maximum chunk size. The blob stores its
+     * content in a sequence of chunks that grow in size until they reach the maximum size. A
+     * smaller maximum reduces the size of the contiguous allocations required for large blobs,
+     * while a larger maximum increases the likelihood that {@link MemoryBlob#toByteBuffer()} can
+     * return the content without copying it.
+     *
+     * @param pool the pool to allocate buffers from, or <code>null</code> if buffers should be
+     *     allocated on the heap without pooling
+     * @param maxChunkSize the maximum chunk size in bytes
+     * @return the blob
+     */
+    public static MemoryBlob createMemoryBlob(ChunkPool pool, int maxChunkSize) {
+        if (maxChunkSize <= 0) {
+            throw new IllegalArgumentException("maxChunkSize must be positive");
+        }
+        return new MemoryBlobImpl(
+                pool,
+                Math.min(MemoryBlobImpl.DEFAULT_INITIAL_CHUNK_SIZE, maxChunkSize),
+                maxChunkSize);
+    }
+
+    /**
+     * Create a {@link DirectMemoryBlob} instance, i.e. a {@link MemoryBlob} that stores its data in
+     * direct (off-heap) buffers.
+     *
+     * @return the blob
+     */
+    public static DirectMemoryBlob createDirectMemoryBlob() {
+        return new DirectMemoryBlobImpl();
+    }
+
     /**
      * Create an {@link OverflowableBlob}.
      *
@@ -52,14 +121,127 @@ public final class Blobs {
      */
     public static OverflowableBlob createOverflowableBlob(
             int threshold, WritableBlobFactory<?> overflowBlobFactory) {
+        return createOverflowableBlob(threshold, overflowBlobFactory, null);
+    }
+
+    /**
+     * Create an {@link OverflowableBlob} that allocates its in-memory buffers from the given pool.
+     * The buffers are returned to the pool when the blob is released or when it overflows.
+     *
+     * @param threshold the threshold above which data is transferred to the overflow blob
+     * @param overflowBlobFactory the factory that will be used to create the overflow blob
+     * @param pool the pool to allocate buffers from, or <code>null</code> to allocate buffers
+     *     without pooling
+     * @return the blob
+     */
+    public static OverflowableBlob createOverflowableBlob(
+            int threshold, WritableBlobFactory<?> overflowBlobFactory, ChunkPool pool) {
+        return createOverflowableBlob(threshold, overflowBlobFactory, pool, null);
+    }
+
+    /**
+     * Create an {@link OverflowableBlob} whose in-memory buffers are accounted against the given
+     * memory budget. If the budget is exhausted, the blob switches to the overflow blob early, even
+     * if the threshold has not been reached yet. The memory is returned to the budget when the blob
+     * is released, when it overflows or, as a last resort, when it is garbage collected.
+     *
+     * @param threshold the threshold above which data is transferred to the overflow blob
+     * @param overflowBlobFactory the factory that will be used to create the overflow blob
+     * @param pool the pool to allocate buffers from, or <code>null</code> to allocate buffers
+     *     without pooling
+     * @param budget the memory budget shared by the blobs, or <code>null</code> if the memory used
+     *     by the blob is only limited by the threshold
+     * @return the blob
+     */
+    public static OverflowableBlob createOverflowableBlob(
+            int threshold,
+            WritableBlobFactory<?> overflowBlobFactory,
+            ChunkPool pool,
+            BlobMemoryBudget budget) {
         int numberOfChunks = Math.max(16, Math.min(1, threshold / 4096));
         int chunkSize = threshold / numberOfChunks;
-        return new OverflowableBlobImpl(numberOfChunks, chunkSize, overflowBlobFactory);
+        return new OverflowableBlobImpl(
+                numberOfChunks, chunkSize, overflowBlobFactory, pool, budget, false);
+    }
+
+    /**
+     * Create a factory for blobs that store data in memory up to a certain threshold and transfer
+     * it to a blob created by a different factory if that threshold is exceeded. Without size
+     * hints, the factory creates {@link OverflowableBlob} instances (see {@link
+     * #createOverflowableBlob(int, WritableBlobFactory)}). With size hints (see {@link
+     * WritableBlobFactory#createBlob(long, long)}), content expected to exceed the threshold is
+     * written to the overflow blob directly, while smaller content uses a memory buffer of exactly
+     * the expected size.
+     *
+     * @param threshold the threshold above which data is transferred to the overflow blob
+     * @param overflowBlobFactory the factory that will be used to create the overflow blob
+     * @return the factory
+     */
+    public static WritableBlobFactory<WritableBlob> createOverflowableBlobFactory(
+            int threshold, WritableBlobFactory<?> overflowBlobFactory) {
+        return new OverflowableBlobFactory(threshold, overflowBlobFactory);
+    }
+
+    /**
+     * Create an {@link OverflowableBlob} that operates in hybrid mode. When the size of the blob
+     * exceeds the threshold, the data already buffered in memory is kept and only the remaining
+     * data is written to the overflow blob. This avoids copying the buffered data, at the expense
+     * of keeping the memory allocated until the blob is released. Data is read transparently from
+     * both parts.
+     *
+     * @param threshold the threshold above which data is transferred to the overflow blob
+     * @param overflowBlobFactory the factory that will be used to create the overflow blob
+     * @return the blob
+     */
+    public static OverflowableBlob createHybridOverflowableBlob(
+            int threshold, WritableBlobFactory<?> overflowBlobFactory) {
+        return createHybridOverflowableBlob(threshold, overflowBlobFactory, null, null);
+    }
+
+    /**
+     * Create an {@link OverflowableBlob} that operates in hybrid mode, with the given buffer pool
+     * and memory budget. See {@link #createHybridOverflowableBlob(int, WritableBlobFactory)} and
+     * {@link #createOverflowableBlob(int, WritableBlobFactory, ChunkPool, BlobMemoryBudget)}.
+     *
+     * @param threshold the threshold above which data is transferred to the overflow blob
+     * @param overflowBlobFactory the factory that will be used to create the overflow blob
+     * @param pool the pool to allocate buffers from, or <code>null</code> to allocate buffers
+     *     without pooling
+     * @param budget the memory budget shared by the blobs, or <code>null</code> if the memory used
+     *     by the blob is only limited by the threshold
+     * @return the blob
+     */
+    public static OverflowableBlob createHybridOverflowableBlob(
+            int threshold,
+            WritableBlobFactory<?> overflowBlobFactory,
+            ChunkPool pool,
+            BlobMemoryBudget budget) {
+        int numberOfChunks = Math.max(16, Math.min(1, threshold / 4096));
+        int chunkSize = threshold / numberOfChunks;
+        return new OverflowableBlobImpl(
+                numberOfChunks, chunkSize, overflowBlobFactory, pool, budget, true);
+    }
+
+    /**
+     * Create a {@link TempFileBlobFactory}.
+     *
+     * @param tempPrefix the prefix to be used in generating the name of the temporary files
+     * @param tempSuffix the suffix to be used in generating the name of the temporary files
+     * @param tempDirectory the directory in which the temporary files are to be created, or <code>
+     *     null</code> if the default temporary directory is to be used
+     * @return the factory
+     */
+    public static TempFileBlobFactory createTempFileBlobFactory(
+            String tempPrefix, String tempSuffix, File tempDirectory) {
+        return new TempFileBlobFactory(tempPrefix, tempSuffix, tempDirectory);
     }
 
     /**
      * Create an {@link OverflowableBlob} that overflows to a temporary file. Temporary files are
-     * created using {@link File#createTempFile(String, String, File)}.
+     * created using {@link File#createTempFile(String, String, File)}. Note that each blob created
+     * by this method uses its own {@link TempFileBlobFactory}; to monitor the temporary files
+     * created by a set of blobs, use {@link #createTempFileBlobFactory(String, String, File)} and
+     * {@link #createOverflowableBlob(int, WritableBlobFactory)} instead.
      *
      * @param threshold the overflow threshold
      * @param tempPrefix the prefix to be used in generating the name of the temporary file
@@ -73,4 +255,50 @@ public final class Blobs {
         return createOverflowableBlob(
                 threshold, new TempFileBlobFactory(tempPrefix, tempSuffix, tempDirectory));
     }
+
+    /**
+     * Create a {@link WritableBlobFactory} that computes digests or checksums of the data while it
+     * is written to the blobs created by the given factory. The values are available through {@link
+     * Blob#getDigest(String)} once the blob has been committed. Slices of the blobs don't have
+     * digests.
+     *
+     * @param parent the factory that creates the blobs storing the data
+     * @param algorithms the algorithms to use: {@code CRC32}, {@code CRC32C} or the names of {@link
+     *     java.security.MessageDigest} algorithms
+     * @return the factory
+     * @throws IllegalArgumentException if one of the algorithms is not supported
+     */
+    public static WritableBlobFactory<WritableBlob> createDigestingBlobFactory(
+            WritableBlobFactory<?> parent, String... algorithms) {
+        String[] algorithmsCopy = algorithms.clone();
+        for (String algorithm : algorithmsCopy) {
+            // Fail early if the algorithm is not supported.
+            Digester.create(algorithm);
+        }
+        return new WritableBlobFactory<WritableBlob>() {
+            @Override
+            public WritableBlob createBlob() {
+                return new DigestingBlob(parent.createBlob(), algorithmsCopy);
+            }
+
+            @Override
+            public WritableBlob createBlob(long expectedSize, long maxSize) {
+                return new DigestingBlob(parent.createBlob(expectedSize, maxSize), algorithmsCopy);
+            }
+        };
+    }
+
+    /**
+     * Create a {@link DeduplicatingBlobStore}.
+     *
+     * @param storageFactory the factory used to create the blobs that store the content of the
+     *     entries
+     * @param maxUnreferencedEntries the maximum number of entries that are kept in the store when
+     *     they are no longer referenced by any blob
+     * @return the store
+     */
+    public static DeduplicatingBlobStore createDeduplicatingBlobStore(
+            WritableBlobFactory<?> storageFactory, int maxUnreferencedEntries) {
+        return new DeduplicatingBlobStore(storageFactory, maxUnreferencedEntries);
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.lang.ref.Cleaner;
+
+/**
+ * Tracks the memory reserved by a blob from a {@link BlobMemoryBudget}. The reservation is returned
+ * to the budget when the blob releases its memory or, failing that, when the blob is garbage
+ * collected. This class must not keep a reference to the blob.
+ */
+final class BudgetReservation implements Runnable {
+    private final BlobMemoryBudget budget;
+    private final Cleaner.Cleanable cleanable;
+    private long bytes;
+
+    BudgetReservation(BlobMemoryBudget budget, Object owner) {
+        this.budget = budget;
+        cleanable = Blobs.cleaner.register(owner, this);
+    }
+
+    /**
+     * Reserve additional memory.
+     *
+     * @param bytes the number of bytes to reserve
+     * @return <code>true</code> if the memory has been reserved, <code>false</code> if the budget
+     *     is exhausted
+     */
+    synchronized boolean reserve(long bytes) {
+        if (budget.reserve(bytes)) {
+            this.bytes += bytes;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /** Return all reserved memory to the budget. */
+    void release() {
+        cleanable.clean();
+    }
+
+    @Override
+    public synchronized void run() {
+        budget.release(bytes);
+        bytes = 0;
+    }
+}
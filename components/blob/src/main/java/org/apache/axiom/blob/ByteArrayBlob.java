@@ -22,6 +22,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.ext.io.StreamCopyException;
 
@@ -46,8 +49,27 @@ final class ByteArrayBlob implements Blob {
         }
     }
 
+    @Override
+    public ReadableByteChannel openChannel() {
+        return new ByteBufferChannel(ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        try {
+            ByteBufferChannel.writeFully(ByteBuffer.wrap(data), out);
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
+
     @Override
     public long getSize() {
         return data.length;
     }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        return ByteBufferBlob.slice(new ByteBuffer[] {ByteBuffer.wrap(data)}, offset, length);
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.axiom.ext.io.StreamCopyException;
+
+/**
+ * Read-only {@link Blob} that shares the storage of a sequence of byte buffers. It is used to
+ * implement {@link Blob#slice(long, long)} for blobs that store their data in memory.
+ */
+final class ByteBufferBlob implements Blob {
+    /** Size of the heap buffer used to write the content of direct buffers to a stream. */
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    /** The buffers. The content of each buffer is between index 0 and its limit. */
+    private final ByteBuffer[] buffers;
+
+    private final long size;
+
+    private ByteBufferBlob(ByteBuffer[] buffers, long size) {
+        this.buffers = buffers;
+        this.size = size;
+    }
+
+    /**
+     * Create a blob for a range of the data stored in a sequence of byte buffers.
+     *
+     * @param buffers the buffers; the content of each buffer must be between index 0 and its limit
+     * @param offset the offset of the range
+     * @param length the length of the range
+     * @return the blob
+     * @throws IndexOutOfBoundsException if the range is not within the data
+     */
+    static ByteBufferBlob slice(ByteBuffer[] buffers, long offset, long length) {
+        long size = 0;
+        for (ByteBuffer buffer : buffers) {
+            size += buffer.limit();
+        }
+        SlicedBlob.checkRange(size, offset, length);
+        int first = 0;
+        while (first < buffers.length && offset >= buffers[first].limit()) {
+            offset -= buffers[first].limit();
+            first++;
+        }
+        int count = 0;
+        long remaining = length;
+        ByteBuffer[] sliced = new ByteBuffer[buffers.length - first];
+        for (int i = first; i < buffers.length && remaining > 0; i++) {
+            ByteBuffer buffer = buffers[i].duplicate();
+            int start = i == first ? (int) offset : 0;
+            int end = (int) Math.min(buffer.limit(), start + remaining);
+            buffer.limit(end);
+            buffer.position(start);
+            sliced[count++] = buffer.slice();
+            remaining -= end - start;
+        }
+        if (count < sliced.length) {
+            ByteBuffer[] trimmed = new ByteBuffer[count];
+            System.arraycopy(sliced, 0, trimmed, 0, count);
+            sliced = trimmed;
+        }
+        return new ByteBufferBlob(sliced, length);
+    }
+
+    private ByteBuffer[] getBuffers() {
+        ByteBuffer[] duplicates = new ByteBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            duplicates[i] = buffers[i].duplicate();
+        }
+        return duplicates;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(getBuffers());
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() {
+        return new ByteBufferChannel(buffers);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        byte[] transferBuffer = null;
+        try {
+            for (ByteBuffer buffer : getBuffers()) {
+                if (buffer.hasArray()) {
+                    out.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+                } else {
+                    if (transferBuffer == null) {
+                        transferBuffer = new byte[(int) Math.min(size, TRANSFER_BUFFER_SIZE)];
+                    }
+                    while (buffer.hasRemaining()) {
+                        int c = Math.min(buffer.remaining(), transferBuffer.length);
+                        buffer.get(transferBuffer, 0, c);
+                        out.write(transferBuffer, 0, c);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        try {
+            for (ByteBuffer buffer : buffers) {
+                ByteBufferChannel.writeFully(buffer, out);
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        return slice(buffers, offset, length);
+    }
+}
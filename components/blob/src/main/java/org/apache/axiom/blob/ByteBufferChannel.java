@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Read-only {@link SeekableByteChannel} that returns the content of a sequence of byte buffers. It
+ * is used by the blob implementations that store their data in memory.
+ */
+final class ByteBufferChannel implements SeekableByteChannel {
+    /** The buffers. The content of each buffer is between index 0 and its limit. */
+    private final ByteBuffer[] buffers;
+
+    private final long size;
+
+    private long position;
+
+    /** The index of the buffer that contains the byte at {@link #position}. */
+    private int index;
+
+    /** The position (in the channel) of the first byte of the buffer at {@link #index}. */
+    private long indexStart;
+
+    private boolean open = true;
+
+    ByteBufferChannel(ByteBuffer... buffers) {
+        this.buffers = buffers;
+        long size = 0;
+        for (ByteBuffer buffer : buffers) {
+            size += buffer.limit();
+        }
+        this.size = size;
+    }
+
+    /**
+     * Write the entire content of a buffer to a channel. The position of the buffer is not
+     * modified.
+     *
+     * @param buffer the buffer
+     * @param out the channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeFully(ByteBuffer buffer, WritableByteChannel out) throws IOException {
+        buffer = buffer.duplicate();
+        while (buffer.hasRemaining()) {
+            if (out.write(buffer) == 0) {
+                // The channel is a non-blocking channel that didn't accept any data.
+                Thread.yield();
+            }
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (position >= size) {
+            return -1;
+        }
+        int read = 0;
+        while (dst.hasRemaining() && position < size) {
+            ByteBuffer buffer = buffers[index];
+            int offset = (int) (position - indexStart);
+            int c = Math.min(dst.remaining(), buffer.limit() - offset);
+            if (c > 0) {
+                ByteBuffer src = buffer.duplicate();
+                src.position(offset);
+                src.limit(offset + c);
+                dst.put(src);
+                position += c;
+                read += c;
+            }
+            if (offset + c == buffer.limit()) {
+                indexStart += buffer.limit();
+                index++;
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException();
+        }
+        position = newPosition;
+        index = 0;
+        indexStart = 0;
+        while (index < buffers.length && indexStart + buffers[index].limit() <= newPosition) {
+            indexStart += buffers[index].limit();
+            index++;
+        }
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException {
+        ensureOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.blob;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link MemoryBlobInputStream} that reads data from a sequence of byte buffers. The stream
+ * consumes the buffers, i.e. it modifies their positions.
+ */
+final class ByteBufferInputStream extends MemoryBlobInputStream {
+    private ByteBuffer[] buffers;
+    private int index;
+    private int markIndex;
+    private int markPosition;
+
+    ByteBufferInputStream(ByteBuffer[] buffers) {
+        this.buffers = buffers;
+    }
+
+    /**
+     * Get the buffer to read from, skipping buffers that have been consumed entirely.
+     *
+     * @return the current buffer, or <code>null</code> if the end of the stream has been reached
+     */
+    private ByteBuffer currentBuffer() {
+        if (buffers == null) {
+            return null;
+        }
+        while (index < buffers.length) {
+            ByteBuffer buffer = buffers[index];
+            if (buffer.hasRemaining()) {
+                return buffer;
+            }
+            index++;
+        }
+        return null;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int read = 0;
+        while (len > 0) {
+            ByteBuffer buffer = currentBuffer();
+            if (buffer == null) {
+                break;
+            }
+            int c = Math.min(len, buffer.remaining());
+            buffer.get(b, off, c);
+            off += c;
+            len -= c;
+            read += c;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int read(byte[] b) {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read() {
+        ByteBuffer buffer = currentBuffer();
+        return buffer == null ? -1 : buffer.get() & 0xFF;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = 0;
+        while (n > 0) {
+            ByteBuffer buffer = currentBuffer();
+            if (buffer == null) {
+                break;
+            }
+            int c = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + c);
+            skipped += c;
+            n -= c;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        if (buffers == null) {
+            return 0;
+        }
+        long available = 0;
+        for (int i = index; i < buffers.length; i++) {
+            available += buffers[i].remaining();
+        }
+        return (int) Math.min(available, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        ByteBuffer buffer = currentBuffer();
+        markIndex = index;
+        markPosition = buffer == null ? 0 : buffer.position();
+    }
+
+    @Override
+    public void reset() {
+        if (buffers == null) {
+            return;
+        }
+        for (int i = markIndex; i < buffers.length && i <= index; i++) {
+            buffers[i].position(i == markIndex ? markPosition : 0);
+        }
+        index = markIndex;
+    }
+
+    @Override
+    public void close() {
+        buffers = null;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of recyclable buffers used by {@link MemoryBlob} and {@link OverflowableBlob} instances to
+ * store their data. Buffers are organized in size classes (powers of two between {@value
+ * #MIN_CHUNK_SIZE} and {@value #MAX_CHUNK_SIZE} bytes) and are returned to the pool when a blob is
+ * released. A single pool is typically shared by all blobs created by an application; the total
+ * amount of memory retained by the pool is bounded by a configurable limit.
+ *
+ * <p>Blobs using a pool must be released explicitly (see {@link WritableBlob#release()}) for their
+ * buffers to be recycled. Note that after a blob has been released, input streams previously
+ * obtained from that blob must no longer be used because the underlying buffers may already have
+ * been reused by another blob.
+ *
+ * <p>Instances of this class are thread safe.
+ */
+public final class ChunkPool {
+    /** The size of the smallest buffers managed by the pool. */
+    public static final int MIN_CHUNK_SIZE = 1024;
+
+    /** The size of the largest buffers managed by the pool. */
+    public static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+    private static final int MAX_SHIFT = Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE);
+
+    private static final class SizeClass {
+        final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    }
+
+    private final SizeClass[] sizeClasses = new SizeClass[MAX_SHIFT - MIN_SHIFT + 1];
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private volatile long maxPooledBytes;
+
+    /**
+     * Constructor.
+     *
+     * @param maxPooledBytes the maximum number of bytes retained by the pool
+     */
+    public ChunkPool(long maxPooledBytes) {
+        setMaxPooledBytes(maxPooledBytes);
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass();
+        }
+    }
+
+    /**
+     * Get the maximum number of bytes retained by the pool.
+     *
+     * @return the limit in bytes
+     */
+    public long getMaxPooledBytes() {
+        return maxPooledBytes;
+    }
+
+    /**
+     * Set the maximum number of bytes retained by the pool. Buffers released by blobs are discarded
+     * instead of being pooled if the limit would be exceeded. Reducing the limit doesn't discard
+     * buffers that are already pooled; use {@link #clear()} for that.
+     *
+     * @param maxPooledBytes the limit in bytes
+     */
+    public void setMaxPooledBytes(long maxPooledBytes) {
+        if (maxPooledBytes < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * Get the number of bytes currently retained by the pool.
+     *
+     * @return the number of bytes in pooled buffers
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Get the number of buffer requests that have been satisfied by recycling a pooled buffer.
+     *
+     * @return the number of pool hits
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Get the number of buffer requests that required the allocation of a new buffer.
+     *
+     * @return the number of pool misses
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /** Discard all pooled buffers. */
+    public void clear() {
+        for (SizeClass sizeClass : sizeClasses) {
+            synchronized (sizeClass) {
+                byte[] chunk;
+                while ((chunk = sizeClass.chunks.pollFirst()) != null) {
+                    pooledBytes.addAndGet(-chunk.length);
+                }
+            }
+        }
+    }
+
+    private static int getSizeClassIndex(int size) {
+        if (size <= MIN_CHUNK_SIZE) {
+            return 0;
+        } else if (size > MAX_CHUNK_SIZE) {
+            return -1;
+        } else {
+            return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+        }
+    }
+
+    /**
+     * Get a buffer with at least the given size. Requests for buffers larger than {@link
+     * #MAX_CHUNK_SIZE} are always satisfied by allocating a new buffer of exactly the requested
+     * size.
+     *
+     * @param minSize the minimum size of the buffer
+     * @return the buffer; its content is undefined
+     */
+    byte[] allocate(int minSize) {
+        int index = getSizeClassIndex(minSize);
+        if (index == -1) {
+            missCount.increment();
+            return new byte[minSize];
+        }
+        SizeClass sizeClass = sizeClasses[index];
+        byte[] chunk;
+        synchronized (sizeClass) {
+            chunk = sizeClass.chunks.pollFirst();
+        }
+        if (chunk == null) {
+            missCount.increment();
+            return new byte[1 << (index + MIN_SHIFT)];
+        } else {
+            pooledBytes.addAndGet(-chunk.length);
+            hitCount.increment();
+            return chunk;
+        }
+    }
+
+    /**
+     * Return a buffer to the pool. Buffers that don't match one of the size classes or that would
+     * cause the pool to exceed its limit are discarded.
+     *
+     * @param chunk the buffer
+     */
+    void recycle(byte[] chunk) {
+        int length = chunk.length;
+        if (length < MIN_CHUNK_SIZE || length > MAX_CHUNK_SIZE || Integer.bitCount(length) != 1) {
+            return;
+        }
+        long current;
+        do {
+            current = pooledBytes.get();
+            if (current + length > maxPooledBytes) {
+                return;
+            }
+        } while (!pooledBytes.compareAndSet(current, current + length));
+        SizeClass sizeClass = sizeClasses[Integer.numberOfTrailingZeros(length) - MIN_SHIFT];
+        synchronized (sizeClass) {
+            sizeClass.chunks.addFirst(chunk);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.axiom.ext.io.ReadFromSupport;
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.util.io.IOUtils;
+
+/** {@link WritableBlob} created by {@link DeduplicatingBlobStore}. */
+final class DeduplicatedBlob implements WritableBlob {
+    private final class OutputStreamImpl extends FilterOutputStream implements ReadFromSupport {
+        OutputStreamImpl(OutputStream out) {
+            super(out);
+        }
+
+        private void checkState() {
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkState();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkState();
+            out.write(b, off, len);
+        }
+
+        @Override
+        public long readFrom(InputStream in, long length) throws StreamCopyException {
+            checkState();
+            return IOUtils.copy(in, out, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            checkState();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (state == State.UNCOMMITTED) {
+                out.close();
+                commit();
+            }
+        }
+    }
+
+    private final DeduplicatingBlobStore store;
+
+    /** The blob to which data is written. This is set to null once the blob is committed. */
+    private DigestingBlob pending;
+
+    /** The store entry referenced by this blob. Only set in state COMMITTED. */
+    private DeduplicatingBlobStore.Entry entry;
+
+    private State state = State.NEW;
+
+    DeduplicatedBlob(DeduplicatingBlobStore store, DigestingBlob pending) {
+        this.store = store;
+        this.pending = pending;
+    }
+
+    private void commit() throws IOException {
+        DigestingBlob pending = this.pending;
+        this.pending = null;
+        entry = store.acquire(pending);
+        state = State.COMMITTED;
+        if (entry.blob != pending) {
+            // The content is already in the store.
+            pending.release();
+        }
+    }
+
+    private WritableBlob getBlob() {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        return entry.blob;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        OutputStream out = pending.getOutputStream();
+        state = State.UNCOMMITTED;
+        return new OutputStreamImpl(out);
+    }
+
+    @Override
+    public long readFrom(InputStream in) throws StreamCopyException {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        state = State.UNCOMMITTED;
+        long read = pending.readFrom(in);
+        try {
+            commit();
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+        return read;
+    }
+
+    @Override
+    public long readFrom(ReadableByteChannel in) throws StreamCopyException {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        state = State.UNCOMMITTED;
+        long read = pending.readFrom(in);
+        try {
+            commit();
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+        return read;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return getBlob().getInputStream();
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        return getBlob().openChannel();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        getBlob().writeTo(out);
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        getBlob().writeTo(out);
+    }
+
+    @Override
+    public long getSize() {
+        return getBlob().getSize();
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        return getBlob().slice(offset, length);
+    }
+
+    @Override
+    public byte[] getDigest(String algorithm) {
+        return getBlob().getDigest(algorithm);
+    }
+
+    @Override
+    public void release() throws IOException {
+        if (pending != null) {
+            pending.release();
+            pending = null;
+        }
+        if (entry != null) {
+            store.release(entry);
+            entry = null;
+        }
+        state = State.RELEASED;
+    }
+}
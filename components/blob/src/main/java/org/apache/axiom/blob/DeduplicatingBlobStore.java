@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link WritableBlobFactory} that stores identical content only once. Data written to the blobs
+ * created by this factory is first stored in a blob created by the underlying factory, while a
+ * SHA-256 digest is computed. When the blob is committed, the digest is looked up in the store: if
+ * an entry with the same content already exists, the newly written data is discarded and the blob
+ * references the existing entry instead. Entries are reference counted and their storage is only
+ * released when they are no longer referenced and are evicted from the store.
+ *
+ * <p>The store retains up to a configurable number of entries that are no longer referenced, so
+ * that content that is received repeatedly is deduplicated even if there is no overlap between the
+ * lifetimes of the blobs. When that limit is exceeded, the least recently used unreferenced entries
+ * are evicted.
+ *
+ * <p>Instances are created with {@link Blobs#createDeduplicatingBlobStore(WritableBlobFactory,
+ * int)}. They are thread safe. Note that blobs created by this factory must always be released, and
+ * that {@link #clear()} should be called when the store is no longer used.
+ */
+public final class DeduplicatingBlobStore implements WritableBlobFactory<WritableBlob> {
+    private static final Log log = LogFactory.getLog(DeduplicatingBlobStore.class);
+
+    static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final class Key {
+        private final byte[] digest;
+        private final long size;
+
+        Key(byte[] digest, long size) {
+            this.digest = digest;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return size == other.size && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(digest);
+        }
+    }
+
+    static final class Entry {
+        private final Key key;
+        final WritableBlob blob;
+        private int refCount;
+
+        Entry(Key key, WritableBlob blob) {
+            this.key = key;
+            this.blob = blob;
+        }
+    }
+
+    private final WritableBlobFactory<?> storageFactory;
+    private final int maxUnreferencedEntries;
+
+    /** The entries in least recently used order. Guarded by <code>this</code>. */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int unreferencedEntries;
+    private long storedBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long deduplicatedBytes;
+
+    DeduplicatingBlobStore(WritableBlobFactory<?> storageFactory, int maxUnreferencedEntries) {
+        if (maxUnreferencedEntries < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.storageFactory = storageFactory;
+        this.maxUnreferencedEntries = maxUnreferencedEntries;
+    }
+
+    @Override
+    public WritableBlob createBlob() {
+        return new DeduplicatedBlob(
+                this,
+                new DigestingBlob(storageFactory.createBlob(), new String[] {DIGEST_ALGORITHM}));
+    }
+
+    @Override
+    public WritableBlob createBlob(long expectedSize, long maxSize) {
+        return new DeduplicatedBlob(
+                this,
+                new DigestingBlob(
+                        storageFactory.createBlob(expectedSize, maxSize),
+                        new String[] {DIGEST_ALGORITHM}));
+    }
+
+    /**
+     * Look up or create the entry for a blob that has just been committed and acquire a reference
+     * to it.
+     *
+     * @param blob the committed blob
+     * @return the entry; if its {@link Entry#blob} is not the given blob, then the given blob is no
+     *     longer needed and must be released by the caller
+     */
+    Entry acquire(WritableBlob blob) {
+        long size = blob.getSize();
+        Key key = new Key(blob.getDigest(DIGEST_ALGORITHM), size);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key, blob);
+                entries.put(key, entry);
+                storedBytes += size;
+                missCount++;
+            } else {
+                if (entry.refCount == 0) {
+                    unreferencedEntries--;
+                }
+                deduplicatedBytes += size;
+                hitCount++;
+            }
+            entry.refCount++;
+            return entry;
+        }
+    }
+
+    /**
+     * Release a reference to an entry.
+     *
+     * @param entry the entry
+     */
+    void release(Entry entry) {
+        Entry[] evicted;
+        synchronized (this) {
+            if (--entry.refCount > 0) {
+                return;
+            }
+            unreferencedEntries++;
+            evicted = evict(maxUnreferencedEntries);
+        }
+        releaseAll(evicted);
+    }
+
+    /**
+     * Remove least recently used entries that are no longer referenced until the number of such
+     * entries doesn't exceed the given limit. Must be called with the lock held.
+     *
+     * @param limit the number of unreferenced entries to keep
+     * @return the evicted entries
+     */
+    private Entry[] evict(int limit) {
+        int count = unreferencedEntries - limit;
+        if (count <= 0) {
+            return new Entry[0];
+        }
+        Entry[] evicted = new Entry[count];
+        int i = 0;
+        for (Iterator<Entry> it = entries.values().iterator(); i < count && it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.refCount == 0) {
+                it.remove();
+                storedBytes -= entry.key.size;
+                evicted[i++] = entry;
+            }
+        }
+        unreferencedEntries -= count;
+        evictionCount += count;
+        return evicted;
+    }
+
+    private static void releaseAll(Entry[] entries) {
+        // Release the storage outside of the lock because this may involve I/O.
+        for (Entry entry : entries) {
+            try {
+                entry.blob.release();
+            } catch (IOException ex) {
+                log.warn("Failed to release blob", ex);
+            }
+        }
+    }
+
+    /** Release the storage of all entries that are no longer referenced. */
+    public void clear() {
+        Entry[] evicted;
+        synchronized (this) {
+            evicted = evict(0);
+        }
+        releaseAll(evicted);
+    }
+
+    /**
+     * Get the number of entries in the store, including entries that are no longer referenced.
+     *
+     * @return the number of entries
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of bytes stored by the entries in the store.
+     *
+     * @return the number of bytes
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Get the number of blobs whose content matched an existing entry.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of blobs whose content didn't match any existing entry.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get the number of entries that have been evicted from the store.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Get the total number of bytes that didn't need to be stored because the content matched an
+     * existing entry.
+     *
+     * @return the number of bytes saved
+     */
+    public synchronized long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/** Computes a digest or checksum incrementally. */
+abstract class Digester {
+    private static final class MessageDigestDigester extends Digester {
+        private final MessageDigest digest;
+
+        MessageDigestDigester(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        void update(byte[] b, int off, int len) {
+            digest.update(b, off, len);
+        }
+
+        @Override
+        void update(ByteBuffer buffer) {
+            digest.update(buffer);
+        }
+
+        @Override
+        byte[] finish() {
+            return digest.digest();
+        }
+    }
+
+    private static final class ChecksumDigester extends Digester {
+        private final Checksum checksum;
+
+        ChecksumDigester(Checksum checksum) {
+            this.checksum = checksum;
+        }
+
+        @Override
+        void update(byte[] b, int off, int len) {
+            checksum.update(b, off, len);
+        }
+
+        @Override
+        void update(ByteBuffer buffer) {
+            checksum.update(buffer);
+        }
+
+        @Override
+        byte[] finish() {
+            long value = checksum.getValue();
+            return new byte[] {
+                (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value
+            };
+        }
+    }
+
+    /**
+     * Create a digester for the given algorithm.
+     *
+     * @param algorithm {@code CRC32}, {@code CRC32C} or the name of a {@link MessageDigest}
+     *     algorithm
+     * @return the digester
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    static Digester create(String algorithm) {
+        if (algorithm.equalsIgnoreCase("CRC32")) {
+            return new ChecksumDigester(new CRC32());
+        } else if (algorithm.equalsIgnoreCase("CRC32C")) {
+            return new ChecksumDigester(new CRC32C());
+        } else {
+            try {
+                return new MessageDigestDigester(MessageDigest.getInstance(algorithm));
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalArgumentException(ex);
+            }
+        }
+    }
+
+    abstract void update(byte[] b, int off, int len);
+
+    /**
+     * Update the digest with the remaining bytes in the given buffer. On return, the position of
+     * the buffer is equal to its limit.
+     *
+     * @param buffer the buffer
+     */
+    abstract void update(ByteBuffer buffer);
+
+    /**
+     * Complete the computation.
+     *
+     * @return the digest or checksum value; checksums are returned as 4 bytes in big-endian order
+     */
+    abstract byte[] finish();
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.axiom.ext.io.ReadFromSupport;
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.util.io.IOUtils;
+
+/**
+ * {@link WritableBlob} that computes digests of the data while it is written to the underlying
+ * blob. Created by the factory returned by {@link Blobs#createDigestingBlobFactory(
+ * WritableBlobFactory, String...)}.
+ */
+final class DigestingBlob implements WritableBlob {
+    /** Input stream that updates the digests with the data read from the underlying stream. */
+    private final class DigestingInputStream extends FilterInputStream {
+        DigestingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                update(new byte[] {(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int c = in.read(b, off, len);
+            if (c > 0) {
+                update(b, off, c);
+            }
+            return c;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped data must be digested too.
+            byte[] buffer = new byte[(int) Math.min(n, 4096)];
+            long skipped = 0;
+            while (skipped < n) {
+                int c = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+                if (c == -1) {
+                    break;
+                }
+                skipped += c;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {}
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+    }
+
+    /** Channel that updates the digests with the data read from the underlying channel. */
+    private final class DigestingChannel implements ReadableByteChannel {
+        private final ReadableByteChannel channel;
+
+        DigestingChannel(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int position = dst.position();
+            int c = channel.read(dst);
+            if (c > 0) {
+                ByteBuffer data = dst.duplicate();
+                data.limit(dst.position());
+                data.position(position);
+                for (Digester digester : digesters) {
+                    digester.update(data.duplicate());
+                }
+            }
+            return c;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /** Output stream that updates the digests with the data written to the underlying stream. */
+    private final class DigestingOutputStream extends FilterOutputStream
+            implements ReadFromSupport {
+        DigestingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            update(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            update(b, off, len);
+        }
+
+        @Override
+        public long readFrom(InputStream in, long length) throws StreamCopyException {
+            // This preserves the ReadFromSupport optimization of the underlying stream.
+            return IOUtils.copy(new DigestingInputStream(in), out, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            finish();
+        }
+    }
+
+    private final WritableBlob parent;
+    private final String[] algorithms;
+    private final Digester[] digesters;
+    private byte[][] digests;
+
+    DigestingBlob(WritableBlob parent, String[] algorithms) {
+        this.parent = parent;
+        this.algorithms = algorithms;
+        digesters = new Digester[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            digesters[i] = Digester.create(algorithms[i]);
+        }
+    }
+
+    void update(byte[] b, int off, int len) {
+        for (Digester digester : digesters) {
+            digester.update(b, off, len);
+        }
+    }
+
+    void finish() {
+        if (digests == null) {
+            byte[][] digests = new byte[digesters.length][];
+            for (int i = 0; i < digesters.length; i++) {
+                digests[i] = digesters[i].finish();
+            }
+            this.digests = digests;
+        }
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return new DigestingOutputStream(parent.getOutputStream());
+    }
+
+    @Override
+    public long readFrom(InputStream in) throws StreamCopyException {
+        long read = parent.readFrom(new DigestingInputStream(in));
+        finish();
+        return read;
+    }
+
+    @Override
+    public long readFrom(ReadableByteChannel in) throws StreamCopyException {
+        long read = parent.readFrom(new DigestingChannel(in));
+        finish();
+        return read;
+    }
+
+    @Override
+    public byte[] getDigest(String algorithm) {
+        if (digests == null) {
+            throw new IllegalStateException();
+        }
+        for (int i = 0; i < algorithms.length; i++) {
+            if (algorithms[i].equalsIgnoreCase(algorithm)) {
+                return digests[i].clone();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return parent.getInputStream();
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        return parent.openChannel();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        parent.writeTo(out);
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        parent.writeTo(out);
+    }
+
+    @Override
+    public long getSize() {
+        return parent.getSize();
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        return parent.slice(offset, length);
+    }
+
+    @Override
+    public void release() throws IOException {
+        parent.release();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct {@link ByteBuffer} segments used by {@link DirectMemoryBlobImpl}. Allocating
+ * direct buffers is expensive and their memory is only reclaimed once they have been garbage
+ * collected, so segments are returned to the pool when a blob is released. As in {@link ChunkPool},
+ * buffers are organized in size classes (powers of two between {@value #MIN_BUFFER_SIZE} and
+ * {@value #MAX_BUFFER_SIZE} bytes) and the total amount of memory retained by the pool is bounded.
+ *
+ * <p>Instances of this class are thread safe.
+ */
+final class DirectBufferPool {
+    static final int MIN_BUFFER_SIZE = 4096;
+    static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    private static final int MAX_SHIFT = Integer.numberOfTrailingZeros(MAX_BUFFER_SIZE);
+
+    /** The pool shared by all {@link DirectMemoryBlob} instances. */
+    static final DirectBufferPool DEFAULT = new DirectBufferPool(16 * 1024 * 1024);
+
+    private static final class SizeClass {
+        final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+    }
+
+    private final SizeClass[] sizeClasses = new SizeClass[MAX_SHIFT - MIN_SHIFT + 1];
+
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final long maxPooledBytes;
+
+    /**
+     * Constructor.
+     *
+     * @param maxPooledBytes the maximum number of bytes retained by the pool
+     */
+    DirectBufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass();
+        }
+    }
+
+    /**
+     * Get the number of bytes currently retained by the pool.
+     *
+     * @return the number of bytes in pooled buffers
+     */
+    long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    private static int getSizeClassIndex(int size) {
+        if (size < MIN_BUFFER_SIZE || size > MAX_BUFFER_SIZE || Integer.bitCount(size) != 1) {
+            return -1;
+        } else {
+            return Integer.numberOfTrailingZeros(size) - MIN_SHIFT;
+        }
+    }
+
+    /**
+     * Get a direct buffer of the given size. Requests for sizes that don't match one of the size
+     * classes are satisfied by allocating a new buffer.
+     *
+     * @param size the size of the buffer
+     * @return a cleared buffer; its content is undefined
+     */
+    ByteBuffer allocate(int size) {
+        int index = getSizeClassIndex(size);
+        if (index != -1) {
+            SizeClass sizeClass = sizeClasses[index];
+            ByteBuffer buffer;
+            synchronized (sizeClass) {
+                buffer = sizeClass.buffers.pollFirst();
+            }
+            if (buffer != null) {
+                pooledBytes.addAndGet(-size);
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * Return a buffer to the pool. Buffers that don't match one of the size classes or that would
+     * cause the pool to exceed its limit are discarded.
+     *
+     * @param buffer the buffer; it must no longer be used by the caller
+     */
+    void recycle(ByteBuffer buffer) {
+        int size = buffer.capacity();
+        int index = getSizeClassIndex(size);
+        if (index == -1 || !buffer.isDirect() || buffer.isReadOnly()) {
+            return;
+        }
+        long current;
+        do {
+            current = pooledBytes.get();
+            if (current + size > maxPooledBytes) {
+                return;
+            }
+        } while (!pooledBytes.compareAndSet(current, current + size));
+        buffer.clear();
+        SizeClass sizeClass = sizeClasses[index];
+        synchronized (sizeClass) {
+            sizeClass.buffers.addFirst(buffer);
+        }
+    }
+}
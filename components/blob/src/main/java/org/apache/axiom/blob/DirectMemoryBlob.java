@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * {@link MemoryBlob} that stores its data outside of the Java heap, in direct {@link ByteBuffer}
+ * segments. This reduces heap usage and GC pressure for large in-memory attachments and allows the
+ * content to be written to NIO channels without copying it back to the heap.
+ *
+ * <p>When the blob is released with {@link #release()}, its segments are returned to a bounded pool
+ * shared by all instances, so that they can be reused without allocating new off-heap memory.
+ * Applications should therefore always release these blobs explicitly, even though this is not
+ * required for other {@link MemoryBlob} implementations. Buffers, streams and slices obtained from
+ * the blob must not be used after it has been released, with the exception of the stream returned
+ * by {@link #readOnce()}.
+ *
+ * <p>Instances are created with {@link Blobs#createDirectMemoryBlob()} or using {@link #FACTORY}.
+ */
+public interface DirectMemoryBlob extends MemoryBlob {
+    WritableBlobFactory<DirectMemoryBlob> FACTORY = DirectMemoryBlobImpl::new;
+
+    /**
+     * Get read-only views of the segments holding the content of this blob. Each buffer is
+     * positioned at the beginning of its segment and its limit is set to the amount of data in the
+     * segment. The returned buffers share their content with the blob, but have independent
+     * positions and limits; they can e.g. be passed to {@link
+     * GatheringByteChannel#write(ByteBuffer[])}. The buffers must not be used after the blob has
+     * been released.
+     *
+     * @return the segments, in order
+     * @throws IllegalStateException if the blob is not in state COMMITTED
+     */
+    ByteBuffer[] getBuffers();
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.axiom.ext.io.StreamCopyException;
+
+final class DirectMemoryBlobImpl implements DirectMemoryBlob {
+    private static final int INITIAL_SEGMENT_SIZE = DirectBufferPool.MIN_BUFFER_SIZE;
+    private static final int MAX_SEGMENT_SIZE = DirectBufferPool.MAX_BUFFER_SIZE;
+
+    /** Size of the heap buffer used to transfer data between streams and segments. */
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    class OutputStreamImpl extends MemoryBlobOutputStream {
+        private ByteBuffer segment;
+
+        private void updateSegment() {
+            if (segment == null || !segment.hasRemaining()) {
+                segment =
+                        pool.allocate(
+                                segment == null
+                                        ? INITIAL_SEGMENT_SIZE
+                                        : Math.min(segment.capacity() * 2, MAX_SEGMENT_SIZE));
+                segments.add(segment);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            while (len > 0) {
+                updateSegment();
+                int c = Math.min(len, segment.remaining());
+                segment.put(b, off, c);
+                off += c;
+                len -= c;
+                size += c;
+            }
+        }
+
+        @Override
+        public void write(byte[] b) {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(int b) {
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            updateSegment();
+            segment.put((byte) b);
+            size++;
+        }
+
+        @Override
+        public long readFrom(InputStream in, long length) throws StreamCopyException {
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+            long read = 0;
+            long toRead = length == -1 ? Long.MAX_VALUE : length;
+            while (toRead > 0) {
+                int c;
+                try {
+                    c = in.read(buffer, 0, (int) Math.min(toRead, buffer.length));
+                } catch (IOException ex) {
+                    throw new StreamCopyException(StreamCopyException.READ, ex);
+                }
+                if (c == -1) {
+                    break;
+                }
+                write(buffer, 0, c);
+                read += c;
+                toRead -= c;
+            }
+            return read;
+        }
+
+        long readFrom(ReadableByteChannel in) throws StreamCopyException {
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            long read = 0;
+            while (true) {
+                updateSegment();
+                int c;
+                try {
+                    c = in.read(segment);
+                } catch (IOException ex) {
+                    throw new StreamCopyException(StreamCopyException.READ, ex);
+                }
+                if (c == -1) {
+                    break;
+                }
+                read += c;
+                size += c;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            if (state == State.UNCOMMITTED) {
+                state = State.COMMITTED;
+            }
+        }
+    }
+
+    private final DirectBufferPool pool;
+    private List<ByteBuffer> segments;
+    private long size;
+    private State state = State.NEW;
+
+    DirectMemoryBlobImpl() {
+        this(DirectBufferPool.DEFAULT);
+    }
+
+    DirectMemoryBlobImpl(DirectBufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public MemoryBlobOutputStream getOutputStream() {
+        return internalGetOutputStream();
+    }
+
+    private OutputStreamImpl internalGetOutputStream() {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        segments = new ArrayList<>();
+        state = State.UNCOMMITTED;
+        return new OutputStreamImpl();
+    }
+
+    @Override
+    public long readFrom(InputStream in) throws StreamCopyException {
+        MemoryBlobOutputStream out = getOutputStream();
+        try {
+            return out.readFrom(in, -1);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public long readFrom(ReadableByteChannel in) throws StreamCopyException {
+        OutputStreamImpl out = internalGetOutputStream();
+        try {
+            return out.readFrom(in);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public ByteBuffer[] getBuffers() {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        ByteBuffer[] buffers = new ByteBuffer[segments.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            ByteBuffer buffer = segments.get(i).asReadOnlyBuffer();
+            buffer.flip();
+            buffers[i] = buffer;
+        }
+        return buffers;
+    }
+
+    @Override
+    public ByteBuffer toByteBuffer() {
+        ByteBuffer[] buffers = getBuffers();
+        if (buffers.length == 1) {
+            return buffers[0];
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Blob too large");
+        }
+        ByteBuffer content = ByteBuffer.allocateDirect((int) size);
+        for (ByteBuffer buffer : buffers) {
+            content.put(buffer);
+        }
+        content.flip();
+        return content.asReadOnlyBuffer();
+    }
+
+    @Override
+    public MemoryBlobInputStream getInputStream() {
+        return new ByteBufferInputStream(getBuffers());
+    }
+
+    @Override
+    public MemoryBlobInputStream readOnce() {
+        MemoryBlobInputStream in = getInputStream();
+        // The stream still uses the segments; leave them to the garbage collector instead of
+        // recycling them.
+        segments = null;
+        state = State.RELEASED;
+        return in;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        ByteBuffer[] buffers = getBuffers();
+        byte[] transferBuffer = new byte[(int) Math.min(size, TRANSFER_BUFFER_SIZE)];
+        try {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    int c = Math.min(buffer.remaining(), transferBuffer.length);
+                    buffer.get(transferBuffer, 0, c);
+                    out.write(transferBuffer, 0, c);
+                }
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() {
+        return new ByteBufferChannel(getBuffers());
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        try {
+            for (ByteBuffer buffer : getBuffers()) {
+                ByteBufferChannel.writeFully(buffer, out);
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        return size;
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        return ByteBufferBlob.slice(getBuffers(), offset, length);
+    }
+
+    @Override
+    public void release() {
+        if (segments != null) {
+            for (ByteBuffer segment : segments) {
+                pool.recycle(segment);
+            }
+            segments = null;
+        }
+        state = State.RELEASED;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.util.io.IOUtils;
+
+/**
+ * Read-only {@link Blob} representing a region of a file. It is used to implement {@link
+ * Blob#slice(long, long)} for blobs that store their data in a file. Data is read using positional
+ * reads, so that skipping data doesn't require reading it.
+ */
+final class FileRegionBlob implements Blob {
+    final class InputStreamImpl extends InputStream {
+        private final FileChannel channel;
+        private long position = offset;
+        private long markPosition = offset;
+
+        InputStreamImpl(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long remaining = offset + length - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int c = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (c > 0) {
+                position += c;
+            }
+            return c;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public long skip(long n) {
+            long c = Math.max(0, Math.min(n, offset + length - position));
+            position += c;
+            return c;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(offset + length - position, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+            markPosition = position;
+        }
+
+        @Override
+        public void reset() {
+            position = markPosition;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * The blob that owns the file. The file may be deleted when that blob becomes unreachable, so
+     * we need to keep a strong reference to it.
+     */
+    private final Blob owner;
+
+    private final File file;
+    private final long offset;
+    private final long length;
+
+    FileRegionBlob(Blob owner, File file, long offset, long length) {
+        this.owner = owner;
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    private FileChannel openFileChannel() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new InputStreamImpl(openFileChannel());
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        return Channels.newChannel(getInputStream());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        WritableByteChannel channel = IOUtils.getChannel(out);
+        if (channel == null) {
+            InputStream in;
+            try {
+                in = getInputStream();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+            try {
+                IOUtils.copy(in, out, -1);
+            } finally {
+                try {
+                    in.close();
+                } catch (IOException ex) {
+                    throw new StreamCopyException(StreamCopyException.READ, ex);
+                }
+            }
+        } else {
+            writeTo(channel);
+        }
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        FileChannel in;
+        try {
+            in = openFileChannel();
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.READ, ex);
+        }
+        try {
+            IOUtils.transferTo(in, offset, length, out);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return length;
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        SlicedBlob.checkRange(this.length, offset, length);
+        return new FileRegionBlob(owner, file, this.offset + offset, length);
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.axiom.blob;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Blob that stores data in memory.
@@ -30,7 +31,11 @@ import java.io.IOException;
  * <p>Instances are created with {@link Blobs#createMemoryBlob()} or using {@link #FACTORY}.
  */
 public interface MemoryBlob extends WritableBlob {
-    WritableBlobFactory<MemoryBlob> FACTORY = MemoryBlobImpl::new;
+    /**
+     * Factory for {@link MemoryBlob} instances. If size hints are given, the initial buffer is
+     * allocated with the expected size.
+     */
+    WritableBlobFactory<MemoryBlob> FACTORY = new MemoryBlobFactory();
 
     @Override
     MemoryBlobInputStream getInputStream();
@@ -51,4 +56,17 @@ public interface MemoryBlob extends WritableBlob {
      * @return the input stream to read the data from
      */
     MemoryBlobInputStream readOnce();
+
+    /**
+     * Get the content of this blob as a single read-only buffer. If the content is stored in a
+     * single chunk (which is the case for small blobs and for blobs created with an accurate size
+     * hint), the returned buffer wraps that chunk and no data is copied. Otherwise the content is
+     * copied into a new buffer. The buffer must not be used after the blob has been released.
+     *
+     * @return a buffer positioned at the beginning of the content, with its limit set to the size
+     *     of the blob
+     * @throws IllegalStateException if the blob is not in state COMMITTED
+     * @throws UnsupportedOperationException if the content is too large to fit into a single buffer
+     */
+    ByteBuffer toByteBuffer();
 }
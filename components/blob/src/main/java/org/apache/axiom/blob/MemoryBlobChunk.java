@@ -23,11 +23,16 @@ final class MemoryBlobChunk {
     int size;
     MemoryBlobChunk nextChunk;
 
-    MemoryBlobChunk(int capacity) {
-        buffer = new byte[capacity];
+    MemoryBlobChunk(ChunkPool pool, int capacity) {
+        buffer = pool == null ? new byte[capacity] : pool.allocate(capacity);
     }
 
-    MemoryBlobChunk allocateNextChunk() {
-        return nextChunk = new MemoryBlobChunk(buffer.length * 2);
+    MemoryBlobChunk allocateNextChunk(ChunkPool pool, int maxChunkSize) {
+        // The first chunk may have been sized according to a size hint. If that hint was too
+        // small, don't let the chunks grow from a very small size. Growth is capped so that large
+        // blobs don't require huge contiguous allocations (which are expensive with G1, where they
+        // end up in humongous regions).
+        long capacity = Math.max(2L * buffer.length, MemoryBlobImpl.DEFAULT_INITIAL_CHUNK_SIZE);
+        return nextChunk = new MemoryBlobChunk(pool, (int) Math.min(capacity, maxChunkSize));
     }
 }
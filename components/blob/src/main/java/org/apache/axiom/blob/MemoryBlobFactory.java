@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+/** The {@link WritableBlobFactory} for {@link MemoryBlob} instances. */
+final class MemoryBlobFactory implements WritableBlobFactory<MemoryBlob> {
+    /**
+     * The maximum size of the first chunk allocated based on size hints. This protects against
+     * excessive allocations caused by wrong hints (which may come from untrusted sources).
+     */
+    private static final int MAX_INITIAL_CHUNK_SIZE = 1024 * 1024;
+
+    @Override
+    public MemoryBlob createBlob() {
+        return new MemoryBlobImpl();
+    }
+
+    @Override
+    public MemoryBlob createBlob(long expectedSize, long maxSize) {
+        if (expectedSize < 0) {
+            // The maximum size is only an upper bound (e.g. the length of an entire message) and
+            // is not a good estimate of the actual size.
+            return new MemoryBlobImpl();
+        }
+        long size = maxSize >= 0 ? Math.min(expectedSize, maxSize) : expectedSize;
+        return new MemoryBlobImpl(null, (int) Math.max(1, Math.min(size, MAX_INITIAL_CHUNK_SIZE)));
+    }
+}
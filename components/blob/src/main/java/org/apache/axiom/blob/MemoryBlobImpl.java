@@ -21,24 +21,49 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.ext.io.StreamCopyException;
 
 final class MemoryBlobImpl implements MemoryBlob {
+    /** The default size of the first chunk. */
+    static final int DEFAULT_INITIAL_CHUNK_SIZE = 4096;
+
+    /** The default maximum chunk size. */
+    static final int DEFAULT_MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private final ChunkPool pool;
+    private final int initialChunkSize;
+    private final int maxChunkSize;
     private MemoryBlobChunk firstChunk;
     private boolean committed;
+    private long size;
+
+    MemoryBlobImpl() {
+        this(null);
+    }
+
+    MemoryBlobImpl(ChunkPool pool) {
+        this(pool, DEFAULT_INITIAL_CHUNK_SIZE);
+    }
+
+    MemoryBlobImpl(ChunkPool pool, int initialChunkSize) {
+        this(pool, initialChunkSize, DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    MemoryBlobImpl(ChunkPool pool, int initialChunkSize, int maxChunkSize) {
+        this.pool = pool;
+        this.initialChunkSize = initialChunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
 
     @Override
     public long getSize() {
         if (firstChunk == null || !committed) {
             throw new IllegalStateException();
         } else {
-            long size = 0;
-            MemoryBlobChunk chunk = firstChunk;
-            while (chunk != null) {
-                size += chunk.size;
-                chunk = chunk.nextChunk;
-            }
             return size;
         }
     }
@@ -48,16 +73,32 @@ final class MemoryBlobImpl implements MemoryBlob {
         return internalGetOutputStream();
     }
 
-    private MemoryBlobOutputStream internalGetOutputStream() {
+    private MemoryBlobOutputStreamImpl internalGetOutputStream() {
         if (firstChunk != null || committed) {
             throw new IllegalStateException();
         } else {
-            return new MemoryBlobOutputStreamImpl(this, firstChunk = new MemoryBlobChunk(4096));
+            return new MemoryBlobOutputStreamImpl(
+                    this, firstChunk = new MemoryBlobChunk(pool, initialChunkSize));
         }
     }
 
+    ChunkPool getPool() {
+        return pool;
+    }
+
+    int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
     void commit() {
-        committed = true;
+        if (!committed) {
+            // The content can no longer change; compute the size once so that getSize() doesn't
+            // need to walk the chunks.
+            for (MemoryBlobChunk chunk = firstChunk; chunk != null; chunk = chunk.nextChunk) {
+                size += chunk.size;
+            }
+            committed = true;
+        }
     }
 
     @Override
@@ -70,6 +111,16 @@ final class MemoryBlobImpl implements MemoryBlob {
         }
     }
 
+    @Override
+    public long readFrom(ReadableByteChannel in) throws StreamCopyException {
+        MemoryBlobOutputStreamImpl out = internalGetOutputStream();
+        try {
+            return out.readFrom(in);
+        } finally {
+            out.close();
+        }
+    }
+
     @Override
     public MemoryBlobInputStream getInputStream() {
         return getInputStream(true);
@@ -109,8 +160,79 @@ final class MemoryBlobImpl implements MemoryBlob {
         }
     }
 
+    /**
+     * Get byte buffers wrapping the chunks of this blob.
+     *
+     * @return an array of buffers, each having position 0 and limit equal to the chunk size
+     */
+    ByteBuffer[] getBuffers() {
+        if (firstChunk == null || !committed) {
+            throw new IllegalStateException();
+        }
+        int count = 0;
+        for (MemoryBlobChunk chunk = firstChunk; chunk != null; chunk = chunk.nextChunk) {
+            count++;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        int i = 0;
+        for (MemoryBlobChunk chunk = firstChunk; chunk != null; chunk = chunk.nextChunk) {
+            buffers[i++] = ByteBuffer.wrap(chunk.buffer, 0, chunk.size).slice();
+        }
+        return buffers;
+    }
+
+    @Override
+    public ByteBuffer toByteBuffer() {
+        if (firstChunk == null || !committed) {
+            throw new IllegalStateException();
+        }
+        if (size == firstChunk.size) {
+            return ByteBuffer.wrap(firstChunk.buffer, 0, firstChunk.size)
+                    .slice()
+                    .asReadOnlyBuffer();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Blob too large");
+        }
+        byte[] content = new byte[(int) size];
+        int offset = 0;
+        for (MemoryBlobChunk chunk = firstChunk; chunk != null; chunk = chunk.nextChunk) {
+            System.arraycopy(chunk.buffer, 0, content, offset, chunk.size);
+            offset += chunk.size;
+        }
+        return ByteBuffer.wrap(content).asReadOnlyBuffer();
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() {
+        return new ByteBufferChannel(getBuffers());
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        try {
+            for (ByteBuffer buffer : getBuffers()) {
+                ByteBufferChannel.writeFully(buffer, out);
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        return ByteBufferBlob.slice(getBuffers(), offset, length);
+    }
+
     @Override
     public void release() {
+        if (pool != null) {
+            MemoryBlobChunk chunk = firstChunk;
+            while (chunk != null) {
+                pool.recycle(chunk.buffer);
+                chunk = chunk.nextChunk;
+            }
+        }
         firstChunk = null;
     }
 }
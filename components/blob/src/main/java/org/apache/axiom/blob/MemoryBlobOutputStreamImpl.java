@@ -20,6 +20,9 @@ package org.apache.axiom.blob;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 import org.apache.axiom.ext.io.StreamCopyException;
 
@@ -34,10 +37,37 @@ final class MemoryBlobOutputStreamImpl extends MemoryBlobOutputStream {
 
     private void updateChunk() {
         if (chunk.size == chunk.buffer.length) {
-            chunk = chunk.allocateNextChunk();
+            chunk = chunk.allocateNextChunk(blob.getPool(), blob.getMaxChunkSize());
         }
     }
 
+    /**
+     * Check if there is more data to read before allocating a new chunk. This avoids allocating a
+     * chunk that will remain empty if the size of the first chunk was chosen based on an accurate
+     * size hint.
+     *
+     * @param in the stream to read from
+     * @return <code>false</code> if the end of the stream has been reached
+     * @throws StreamCopyException
+     */
+    private boolean probe(InputStream in) throws StreamCopyException {
+        if (chunk.size < chunk.buffer.length) {
+            return true;
+        }
+        int b;
+        try {
+            b = in.read();
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.READ, ex);
+        }
+        if (b == -1) {
+            return false;
+        }
+        updateChunk();
+        chunk.buffer[chunk.size++] = (byte) b;
+        return true;
+    }
+
     @Override
     public void write(byte[] b, int off, int len) {
         if (chunk == null) {
@@ -76,6 +106,15 @@ final class MemoryBlobOutputStreamImpl extends MemoryBlobOutputStream {
         long read = 0;
         long toRead = length == -1 ? Long.MAX_VALUE : length;
         while (toRead > 0) {
+            if (chunk.size == chunk.buffer.length) {
+                if (!probe(in)) {
+                    break;
+                }
+                read++;
+                if (--toRead == 0) {
+                    break;
+                }
+            }
             updateChunk();
             int c;
             try {
@@ -97,6 +136,50 @@ final class MemoryBlobOutputStreamImpl extends MemoryBlobOutputStream {
         return read;
     }
 
+    /**
+     * Read data from a channel directly into the chunks of the blob until the end of the channel is
+     * reached.
+     *
+     * @param in the channel to read from
+     * @return the number of bytes read
+     * @throws StreamCopyException
+     */
+    long readFrom(ReadableByteChannel in) throws StreamCopyException {
+        if (chunk == null) {
+            throw new IllegalStateException();
+        }
+        long read = 0;
+        InputStream probeStream = null;
+        while (true) {
+            if (chunk.size == chunk.buffer.length) {
+                if (probeStream == null) {
+                    probeStream = Channels.newInputStream(in);
+                }
+                if (!probe(probeStream)) {
+                    break;
+                }
+                read++;
+            }
+            int c;
+            try {
+                c =
+                        in.read(
+                                ByteBuffer.wrap(
+                                        chunk.buffer,
+                                        chunk.size,
+                                        chunk.buffer.length - chunk.size));
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+            if (c == -1) {
+                break;
+            }
+            chunk.size += c;
+            read += c;
+        }
+        return read;
+    }
+
     @Override
     public void close() {
         blob.commit();
@@ -30,7 +30,10 @@ package org.apache.axiom.blob;
 public interface OverflowableBlob extends WritableBlob {
     /**
      * Get a reference to the overflow blob. The overflow blob is created only if the size of the
-     * blob exceeds the threshold. The method returns <code>null</code> if that's not the case.
+     * blob exceeds the threshold. The method returns <code>null</code> if that's not the case. Note
+     * that for a blob created in hybrid mode (see {@link Blobs#createHybridOverflowableBlob(int,
+     * WritableBlobFactory)}), the overflow blob only contains the data that didn't fit into the
+     * memory buffer.
      *
      * @return the overflow blob, or <code>null</code> if this blob hasn't overflown
      */
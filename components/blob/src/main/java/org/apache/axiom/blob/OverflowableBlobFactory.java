@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+/**
+ * {@link WritableBlobFactory} that creates {@link OverflowableBlob} instances, or, if size hints
+ * are given, the type of blob that best fits the expected size.
+ */
+final class OverflowableBlobFactory implements WritableBlobFactory<WritableBlob> {
+    private final int threshold;
+    private final WritableBlobFactory<?> overflowBlobFactory;
+
+    OverflowableBlobFactory(int threshold, WritableBlobFactory<?> overflowBlobFactory) {
+        this.threshold = threshold;
+        this.overflowBlobFactory = overflowBlobFactory;
+    }
+
+    @Override
+    public WritableBlob createBlob() {
+        return Blobs.createOverflowableBlob(threshold, overflowBlobFactory);
+    }
+
+    @Override
+    public WritableBlob createBlob(long expectedSize, long maxSize) {
+        if (expectedSize < 0) {
+            // The maximum size is only an upper bound and is not a good estimate of the actual
+            // size; use the default buffer.
+            return createBlob();
+        }
+        long size = maxSize >= 0 ? Math.min(expectedSize, maxSize) : expectedSize;
+        if (size > threshold) {
+            // The content will overflow anyway; avoid buffering it in memory first.
+            return overflowBlobFactory.createBlob(size, maxSize);
+        } else {
+            // Use a memory buffer of exactly the expected size. If the hint is wrong, the blob
+            // will overflow early.
+            return new OverflowableBlobImpl(
+                    1, (int) Math.max(1, size), overflowBlobFactory, null, null, false);
+        }
+    }
+}
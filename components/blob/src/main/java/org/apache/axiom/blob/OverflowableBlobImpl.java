@@ -22,6 +22,9 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.ext.io.ReadFromSupport;
 import org.apache.axiom.ext.io.StreamCopyException;
@@ -36,7 +39,8 @@ final class OverflowableBlobImpl implements OverflowableBlob {
             }
             if (overflowOutputStream != null) {
                 overflowOutputStream.write(b, off, len);
-            } else if (len > (chunks.length - chunkIndex) * chunkSize - chunkOffset) {
+            } else if (!keepPrefix
+                    && len > (chunks.length - chunkIndex) * chunkSize - chunkOffset) {
 
                 // The buffer will overflow. Switch to a temporary file.
                 switchToOverflowBlob();
@@ -46,10 +50,25 @@ final class OverflowableBlobImpl implements OverflowableBlob {
 
             } else {
 
-                // The data will fit into the buffer.
+                // The data will fit into the buffer (or we are in hybrid mode).
                 while (len > 0) {
 
+                    if (chunkIndex == chunks.length) {
+                        // This only happens in hybrid mode: the buffer is full. Write the
+                        // remaining data to the overflow blob.
+                        switchToOverflowBlob();
+                        overflowOutputStream.write(b, off, len);
+                        break;
+                    }
+
                     byte[] chunk = getCurrentChunk();
+                    if (chunk == null) {
+                        // The memory budget is exhausted. Write the remaining data to the
+                        // overflow blob.
+                        switchToOverflowBlob();
+                        overflowOutputStream.write(b, off, len);
+                        break;
+                    }
 
                     // Determine number of bytes that can be copied to the current chunk.
                     int c = Math.min(len, chunkSize - chunkOffset);
@@ -190,15 +209,132 @@ final class OverflowableBlobImpl implements OverflowableBlob {
         public void close() throws IOException {}
     }
 
+    /**
+     * Input stream used in hybrid mode after the blob has overflown. It returns the data from the
+     * memory buffer followed by the data from the overflow blob.
+     */
+    class HybridInputStream extends InputStream {
+        private final InputStreamImpl prefix = new InputStreamImpl();
+
+        /**
+         * The input stream for the overflow blob. This is only opened when the end of the memory
+         * buffer is reached.
+         */
+        private InputStream overflowIn;
+
+        /**
+         * Indicates if the last call to {@link #mark(int)} was delegated to {@link #overflowIn}.
+         */
+        private boolean markInOverflow;
+
+        private InputStream getOverflowInputStream() throws IOException {
+            if (overflowIn == null) {
+                overflowIn = overflowBlob.getInputStream();
+            }
+            return overflowIn;
+        }
+
+        @Override
+        public int available() throws IOException {
+            int available = prefix.available();
+            return available > 0 ? available : getOverflowInputStream().available();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (overflowIn == null) {
+                int c = prefix.read(b, off, len);
+                if (c != -1) {
+                    return c;
+                }
+            }
+            return getOverflowInputStream().read(b, off, len);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            if (overflowIn == null) {
+                skipped = prefix.skip(n);
+                if (skipped == n) {
+                    return skipped;
+                }
+            }
+            return skipped + getOverflowInputStream().skip(n - skipped);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+            if (overflowIn == null) {
+                prefix.mark(readlimit);
+                markInOverflow = false;
+            } else {
+                overflowIn.mark(readlimit);
+                markInOverflow = true;
+            }
+        }
+
+        @Override
+        public void reset() throws IOException {
+            if (markInOverflow) {
+                overflowIn.reset();
+            } else {
+                prefix.reset();
+                if (overflowIn != null) {
+                    overflowIn.close();
+                    overflowIn = null;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (overflowIn != null) {
+                overflowIn.close();
+            }
+        }
+    }
+
     /** Size of the chunks that will be allocated in the buffer. */
     final int chunkSize;
 
     final WritableBlobFactory<?> overflowBlobFactory;
 
+    /** The pool from which chunks are allocated, or <code>null</code> if chunks are not pooled. */
+    final ChunkPool pool;
+
+    /**
+     * Indicates if the blob operates in hybrid mode, i.e. if the data in the memory buffer is kept
+     * when the blob overflows, so that the overflow blob only stores the remaining data.
+     */
+    final boolean keepPrefix;
+
+    /** The memory budget shared with other blobs, or <code>null</code> if there is no budget. */
+    final BlobMemoryBudget budget;
+
+    /**
+     * The memory reserved from {@link #budget}. This is created when the first chunk is allocated.
+     */
+    BudgetReservation reservation;
+
     /**
      * Array of <code>byte[]</code> representing the chunks of the buffer. A chunk is only allocated
-     * when the first byte is written to it. This attribute is set to <code>null</code> when the
-     * buffer overflows and is written out to a temporary file.
+     * when the first byte is written to it. Unless the blob operates in hybrid mode, this attribute
+     * is set to <code>null</code> when the buffer overflows and is written out to a temporary file.
      */
     byte[][] chunks;
 
@@ -220,21 +356,40 @@ final class OverflowableBlobImpl implements OverflowableBlob {
     OutputStream overflowOutputStream;
 
     OverflowableBlobImpl(
-            int numberOfChunks, int chunkSize, WritableBlobFactory<?> overflowBlobFactory) {
+            int numberOfChunks,
+            int chunkSize,
+            WritableBlobFactory<?> overflowBlobFactory,
+            ChunkPool pool,
+            BlobMemoryBudget budget,
+            boolean keepPrefix) {
         this.chunkSize = chunkSize;
         this.overflowBlobFactory = overflowBlobFactory;
+        this.pool = pool;
+        this.budget = budget;
+        this.keepPrefix = keepPrefix;
         chunks = new byte[numberOfChunks][];
     }
 
     /**
      * Get the current chunk to write to, allocating it if necessary.
      *
-     * @return the current chunk to write to (never null)
+     * @return the current chunk to write to, or <code>null</code> if a new chunk needs to be
+     *     allocated, but the memory budget is exhausted
      */
     byte[] getCurrentChunk() {
-        if (chunkOffset == 0) {
-            // We will write the first byte to the current chunk. Allocate it.
-            byte[] chunk = new byte[chunkSize];
+        if (chunks[chunkIndex] == null) {
+            if (budget != null) {
+                if (reservation == null) {
+                    reservation = new BudgetReservation(budget, this);
+                }
+                if (!reservation.reserve(chunkSize)) {
+                    budget.recordPressureSpill();
+                    return null;
+                }
+            }
+            // We will write the first byte to the current chunk. Allocate it. Note that chunks
+            // obtained from the pool may be larger than chunkSize.
+            byte[] chunk = pool == null ? new byte[chunkSize] : pool.allocate(chunkSize);
             chunks[chunkIndex] = chunk;
             return chunk;
         } else {
@@ -244,18 +399,23 @@ final class OverflowableBlobImpl implements OverflowableBlob {
     }
 
     /**
-     * Create a temporary file and write the existing in memory data to it.
+     * Create the overflow blob and, unless the blob operates in hybrid mode, write the existing in
+     * memory data to it.
      *
-     * @return an open FileOutputStream to the temporary file
      * @throws IOException
      */
     void switchToOverflowBlob() throws IOException {
         overflowBlob = overflowBlobFactory.createBlob();
 
         overflowOutputStream = overflowBlob.getOutputStream();
+        if (keepPrefix) {
+            // The memory buffer becomes the prefix of the blob content. Note that from now on
+            // chunkIndex and chunkOffset no longer change.
+            return;
+        }
         // Write the buffer to the temporary file.
         for (int i = 0; i < chunkIndex; i++) {
-            overflowOutputStream.write(chunks[i]);
+            overflowOutputStream.write(chunks[i], 0, chunkSize);
         }
 
         if (chunkOffset > 0) {
@@ -263,7 +423,22 @@ final class OverflowableBlobImpl implements OverflowableBlob {
         }
 
         // Release references to the buffer so that it can be garbage collected.
+        releaseChunks();
+    }
+
+    /** Return the chunks to the pool (if any) and discard them. */
+    void releaseChunks() {
+        if (chunks != null && pool != null) {
+            for (byte[] chunk : chunks) {
+                if (chunk != null) {
+                    pool.recycle(chunk);
+                }
+            }
+        }
         chunks = null;
+        if (reservation != null) {
+            reservation.release();
+        }
     }
 
     @Override
@@ -287,19 +462,43 @@ final class OverflowableBlobImpl implements OverflowableBlob {
                 read += IOUtils.copy(in, overflowOutputStream, toRead);
                 break;
             } else if (chunkIndex == chunks.length) {
+                // The buffer is full. Only switch to the overflow blob if there is more data; this
+                // matters if the buffer was sized according to an accurate size hint.
+                int b;
+                try {
+                    b = in.read();
+                } catch (IOException ex) {
+                    throw new StreamCopyException(StreamCopyException.READ, ex);
+                }
+                if (b == -1) {
+                    break;
+                }
                 try {
                     switchToOverflowBlob();
+                    overflowOutputStream.write(b);
                 } catch (IOException ex) {
                     throw new StreamCopyException(StreamCopyException.WRITE, ex);
                 }
+                read++;
+                toRead--;
             } else {
+                byte[] chunk = getCurrentChunk();
+                if (chunk == null) {
+                    // The memory budget is exhausted.
+                    try {
+                        switchToOverflowBlob();
+                    } catch (IOException ex) {
+                        throw new StreamCopyException(StreamCopyException.WRITE, ex);
+                    }
+                    continue;
+                }
                 int c;
                 try {
                     int len = chunkSize - chunkOffset;
                     if (len > toRead) {
                         len = (int) toRead;
                     }
-                    c = in.read(getCurrentChunk(), chunkOffset, len);
+                    c = in.read(chunk, chunkOffset, len);
                 } catch (IOException ex) {
                     throw new StreamCopyException(StreamCopyException.READ, ex);
                 }
@@ -338,11 +537,52 @@ final class OverflowableBlobImpl implements OverflowableBlob {
     public InputStream getInputStream() throws IOException {
         if (state != State.COMMITTED) {
             throw new IllegalStateException();
-        } else if (overflowBlob != null) {
-            return overflowBlob.getInputStream();
-        } else {
+        } else if (overflowBlob == null) {
             return new InputStreamImpl();
+        } else if (keepPrefix) {
+            return new HybridInputStream();
+        } else {
+            return overflowBlob.getInputStream();
+        }
+    }
+
+    /**
+     * Write the content of the memory buffer to the given stream.
+     *
+     * @param out the output stream
+     * @throws StreamCopyException
+     */
+    private void writeChunksTo(OutputStream out) throws StreamCopyException {
+        try {
+            for (int i = 0; i < chunkIndex; i++) {
+                out.write(chunks[i], 0, chunkSize);
+            }
+            if (chunkOffset > 0) {
+                out.write(chunks[chunkIndex], 0, chunkOffset);
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
+
+    /**
+     * Get byte buffers wrapping the content of the memory buffer.
+     *
+     * @return an array of buffers, each having position 0 and limit equal to the number of bytes in
+     *     the chunk
+     */
+    private ByteBuffer[] getBuffers() {
+        ByteBuffer[] buffers = new ByteBuffer[chunkOffset > 0 ? chunkIndex + 1 : chunkIndex];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] =
+                    ByteBuffer.wrap(chunks[i], 0, i == chunkIndex ? chunkOffset : chunkSize)
+                            .slice();
         }
+        return buffers;
+    }
+
+    private long getBufferedSize() {
+        return (long) chunkIndex * chunkSize + chunkOffset;
     }
 
     @Override
@@ -350,20 +590,46 @@ final class OverflowableBlobImpl implements OverflowableBlob {
         if (state != State.COMMITTED) {
             throw new IllegalStateException();
         }
-        if (overflowBlob != null) {
+        if (overflowBlob == null) {
+            writeChunksTo(out);
+        } else {
+            if (keepPrefix) {
+                writeChunksTo(out);
+            }
             overflowBlob.writeTo(out);
+        }
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        } else if (overflowBlob == null) {
+            return new ByteBufferChannel(getBuffers());
+        } else if (keepPrefix) {
+            return OverflowableBlob.super.openChannel();
         } else {
+            return overflowBlob.openChannel();
+        }
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        if (overflowBlob == null || keepPrefix) {
             try {
-                for (int i = 0; i < chunkIndex; i++) {
-                    out.write(chunks[i]);
-                }
-                if (chunkOffset > 0) {
-                    out.write(chunks[chunkIndex], 0, chunkOffset);
+                for (ByteBuffer buffer : getBuffers()) {
+                    ByteBufferChannel.writeFully(buffer, out);
                 }
             } catch (IOException ex) {
                 throw new StreamCopyException(StreamCopyException.WRITE, ex);
             }
         }
+        if (overflowBlob != null) {
+            overflowBlob.writeTo(out);
+        }
     }
 
     @Override
@@ -371,10 +637,33 @@ final class OverflowableBlobImpl implements OverflowableBlob {
         if (state != State.COMMITTED) {
             throw new IllegalStateException();
         }
-        if (overflowBlob != null) {
+        if (overflowBlob == null) {
+            return getBufferedSize();
+        } else if (keepPrefix) {
+            return getBufferedSize() + overflowBlob.getSize();
+        } else {
             return overflowBlob.getSize();
+        }
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        if (overflowBlob == null) {
+            return ByteBufferBlob.slice(getBuffers(), offset, length);
+        } else if (!keepPrefix) {
+            return overflowBlob.slice(offset, length);
+        }
+        long prefixSize = getBufferedSize();
+        if (offset >= 0 && length >= 0 && offset <= prefixSize - length) {
+            return ByteBufferBlob.slice(getBuffers(), offset, length);
+        } else if (offset >= prefixSize) {
+            return overflowBlob.slice(offset - prefixSize, length);
         } else {
-            return chunkIndex * chunkSize + chunkOffset;
+            // The range spans the memory buffer and the overflow blob.
+            return OverflowableBlob.super.slice(offset, length);
         }
     }
 
@@ -384,6 +673,7 @@ final class OverflowableBlobImpl implements OverflowableBlob {
             overflowBlob.release();
             overflowBlob = null;
         }
+        releaseChunks();
         state = State.RELEASED;
     }
 
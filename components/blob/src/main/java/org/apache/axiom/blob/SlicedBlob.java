@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.util.io.IOUtils;
+
+/**
+ * Generic implementation of {@link Blob#slice(long, long)} for blobs that don't share their
+ * storage. The data is read from the input stream of the parent blob, skipping the bytes before the
+ * range.
+ */
+final class SlicedBlob implements Blob {
+    private static final class InputStreamImpl extends FilterInputStream {
+        private long remaining;
+        private long markRemaining;
+
+        InputStreamImpl(InputStream in, long length) {
+            super(in);
+            remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            int c = in.read(b, off, (int) Math.min(len, remaining));
+            if (c > 0) {
+                remaining -= c;
+            }
+            return c;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long c = in.skip(Math.min(n, remaining));
+            remaining -= c;
+            return c;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            in.mark(readlimit);
+            markRemaining = remaining;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            in.reset();
+            remaining = markRemaining;
+        }
+    }
+
+    private final Blob parent;
+    private final long offset;
+    private final long length;
+
+    SlicedBlob(Blob parent, long offset, long length) {
+        this.parent = parent;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Check that a range is within the content of a blob.
+     *
+     * @param size the size of the blob
+     * @param offset the offset of the range
+     * @param length the length of the range
+     * @throws IndexOutOfBoundsException if the range is not within the content of the blob
+     */
+    static void checkRange(long size, long offset, long length) {
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IndexOutOfBoundsException(
+                    "Range ["
+                            + offset
+                            + ", "
+                            + offset
+                            + " + "
+                            + length
+                            + ") out of bounds for size "
+                            + size);
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream in = parent.getInputStream();
+        long toSkip = offset;
+        while (toSkip > 0) {
+            long c = in.skip(toSkip);
+            if (c <= 0) {
+                if (in.read() == -1) {
+                    in.close();
+                    throw new EOFException();
+                }
+                c = 1;
+            }
+            toSkip -= c;
+        }
+        InputStreamImpl sliced = new InputStreamImpl(in, length);
+        if (in.markSupported()) {
+            // Make reset() without a prior call to mark() return to the start of the range.
+            sliced.mark(Integer.MAX_VALUE);
+        }
+        return sliced;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        InputStream in;
+        try {
+            in = getInputStream();
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.READ, ex);
+        }
+        try {
+            IOUtils.copy(in, out, -1);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return length;
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        checkRange(this.length, offset, length);
+        return new SlicedBlob(parent, this.offset + offset, length);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Manages the lifecycle of a temporary file. The file is deleted either explicitly by {@link
+ * #delete()} or by the {@link Cleaner} when the owner of the file becomes phantom reachable. This
+ * class must not keep a reference to the owner.
+ */
+final class TempFile implements Runnable {
+    private static final Log log = LogFactory.getLog(TempFile.class);
+
+    /**
+     * All temporary files that have not been deleted yet. This is used to delete the remaining
+     * files on shutdown (instead of using {@link File#deleteOnExit()}, which retains the paths of
+     * all files ever registered).
+     */
+    private static final Set<TempFile> liveTempFiles = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime()
+                .addShutdownHook(
+                        new Thread(
+                                () -> {
+                                    for (TempFile tempFile : liveTempFiles) {
+                                        tempFile.file.delete();
+                                    }
+                                },
+                                "Axiom temporary file cleanup"));
+    }
+
+    private final TempFileBlobFactory factory;
+    private final File file;
+    private final Throwable trace;
+    private Cleaner.Cleanable cleanable;
+    private boolean released;
+    private boolean deleted;
+
+    TempFile(TempFileBlobFactory factory, File file) {
+        this.factory = factory;
+        this.file = file;
+        trace = log.isDebugEnabled() ? new Throwable() : null;
+        liveTempFiles.add(this);
+    }
+
+    void register(Object owner) {
+        cleanable = Blobs.cleaner.register(owner, this);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Delete the file. If the file can't be deleted, it remains registered (so that the shutdown
+     * hook will try again) and this method may be called again later.
+     *
+     * @throws IOException if the file could not be deleted
+     */
+    void delete() throws IOException {
+        synchronized (this) {
+            released = true;
+        }
+        // This will invoke run() unless it has already been invoked by the cleaner.
+        cleanable.clean();
+        synchronized (this) {
+            // The cleanable only invokes run() once; retry if that attempt failed.
+            if (!deleted && !tryDelete()) {
+                throw new IOException("Failed to delete " + file);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void run() {
+        if (deleted) {
+            return;
+        }
+        if (released) {
+            if (log.isDebugEnabled()) {
+                log.debug("Deleting temporary file " + file);
+            }
+        } else {
+            log.warn("Cleaning up unreleased temporary file " + file);
+            if (trace != null) {
+                log.debug("Blob was created here", trace);
+            }
+        }
+        if (!tryDelete() && !released) {
+            log.warn("Failed to delete temporary file " + file);
+        }
+    }
+
+    private boolean tryDelete() {
+        // When invoked by the cleaner, this code runs in a thread without permissions.
+        deleted =
+                AccessController.doPrivileged(
+                        (PrivilegedAction<Boolean>) () -> file.delete() || !file.exists());
+        if (deleted) {
+            liveTempFiles.remove(this);
+            factory.removeTempFile(this);
+        }
+        return deleted;
+    }
+}
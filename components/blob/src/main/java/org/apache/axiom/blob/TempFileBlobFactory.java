@@ -20,11 +20,26 @@ package org.apache.axiom.blob;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-final class TempFileBlobFactory implements WritableBlobFactory<WritableBlob> {
+/**
+ * {@link WritableBlobFactory} that creates blobs storing their data in temporary files. Temporary
+ * files are created using {@link File#createTempFile(String, String, File)}.
+ *
+ * <p>The factory keeps track of the temporary files created by its blobs. A file is deleted when
+ * the blob is released or, if the application fails to release the blob, when the blob is garbage
+ * collected. Files that still exist when the JVM shuts down are deleted by a shutdown hook. The
+ * number and total size of the temporary files currently on disk can be queried using {@link
+ * #getTempFileCount()} and {@link #getTempFileBytes()}.
+ *
+ * <p>Instances are created with {@link Blobs#createTempFileBlobFactory(String, String, File)}.
+ */
+public final class TempFileBlobFactory implements WritableBlobFactory<WritableBlob> {
     private final String tempPrefix;
     private final String tempSuffix;
     private final File tempDirectory;
+    private final Set<TempFile> tempFiles = ConcurrentHashMap.newKeySet();
 
     TempFileBlobFactory(String tempPrefix, String tempSuffix, File tempDirectory) {
         this.tempPrefix = tempPrefix;
@@ -37,7 +52,40 @@ final class TempFileBlobFactory implements WritableBlobFactory<WritableBlob> {
         return new TempFileBlobImpl(this);
     }
 
-    File createTempFile() throws IOException {
-        return File.createTempFile(tempPrefix, tempSuffix, tempDirectory);
+    TempFile createTempFile(Object owner) throws IOException {
+        TempFile tempFile =
+                new TempFile(this, File.createTempFile(tempPrefix, tempSuffix, tempDirectory));
+        tempFiles.add(tempFile);
+        tempFile.register(owner);
+        return tempFile;
+    }
+
+    void removeTempFile(TempFile tempFile) {
+        tempFiles.remove(tempFile);
+    }
+
+    /**
+     * Get the number of temporary files created by blobs from this factory that have not been
+     * deleted yet.
+     *
+     * @return the number of temporary files
+     */
+    public int getTempFileCount() {
+        return tempFiles.size();
+    }
+
+    /**
+     * Get the total size of the temporary files created by blobs from this factory that have not
+     * been deleted yet. The value is computed from the current file sizes and may therefore include
+     * data from blobs that are still being written.
+     *
+     * @return the number of bytes on disk
+     */
+    public long getTempFileBytes() {
+        long bytes = 0;
+        for (TempFile tempFile : tempFiles) {
+            bytes += tempFile.getFile().length();
+        }
+        return bytes;
     }
 }
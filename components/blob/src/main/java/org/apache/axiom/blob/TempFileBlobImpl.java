@@ -23,7 +23,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.util.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -31,13 +37,11 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
     private static final Log log = LogFactory.getLog(TempFileBlobImpl.class);
 
     private final TempFileBlobFactory factory;
-    private final Throwable trace;
-    private File file;
+    private TempFile tempFile;
     private State state = State.NEW;
 
     TempFileBlobImpl(TempFileBlobFactory factory) {
         this.factory = factory;
-        trace = log.isDebugEnabled() ? new Throwable() : null;
     }
 
     @Override
@@ -45,11 +49,11 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
         if (state != State.NEW) {
             throw new IllegalStateException();
         }
-        file = factory.createTempFile();
+        tempFile = factory.createTempFile(this);
+        File file = tempFile.getFile();
         if (log.isDebugEnabled()) {
             log.debug("Using temporary file " + file);
         }
-        file.deleteOnExit();
         OutputStream out =
                 new FileOutputStream(file) {
                     @Override
@@ -62,6 +66,23 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
         return out;
     }
 
+    @Override
+    public long readFrom(ReadableByteChannel in) throws StreamCopyException {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        try {
+            tempFile = factory.createTempFile(this);
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+        state = State.UNCOMMITTED;
+        // This will use FileChannel#transferFrom.
+        long size = IOUtils.copy(in, tempFile.getFile());
+        state = State.COMMITTED;
+        return size;
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
         if (state != State.COMMITTED) {
@@ -70,39 +91,55 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
         // We know that we are accessing a regular file and since we don't leak the
         // location of the file, nobody else should be modifying it. Therefore we can
         // return an input stream that supports mark/reset.
-        return new TempFileInputStream(file);
+        return new TempFileInputStream(tempFile.getFile());
     }
 
     @Override
-    public long getSize() {
+    public void writeTo(OutputStream out) throws StreamCopyException {
         if (state != State.COMMITTED) {
             throw new IllegalStateException();
         }
-        return file.length();
+        // This will use FileChannel#transferTo if the output stream supports it.
+        IOUtils.copy(tempFile.getFile(), out);
     }
 
     @Override
-    public void release() throws IOException {
-        if (file != null) {
-            if (log.isDebugEnabled()) {
-                log.debug("Deleting temporary file " + file);
-            }
-            if (!file.delete()) {
-                throw new IOException("Failed to delete " + file);
-            }
-            file = null;
-            state = State.RELEASED;
+    public ReadableByteChannel openChannel() throws IOException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
         }
+        return FileChannel.open(tempFile.getFile().toPath(), StandardOpenOption.READ);
     }
 
     @Override
-    protected void finalize() throws Throwable {
-        if (file != null) {
-            log.warn("Cleaning up unreleased temporary file " + file);
-            if (log.isDebugEnabled()) {
-                log.debug("Blob was created here", trace);
-            }
-            file.delete();
+    public void writeTo(WritableByteChannel out) throws StreamCopyException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        IOUtils.copy(tempFile.getFile(), out);
+    }
+
+    @Override
+    public long getSize() {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        return tempFile.getFile().length();
+    }
+
+    @Override
+    public Blob slice(long offset, long length) {
+        SlicedBlob.checkRange(getSize(), offset, length);
+        return new FileRegionBlob(this, tempFile.getFile(), offset, length);
+    }
+
+    @Override
+    public void release() throws IOException {
+        if (tempFile != null) {
+            // Only update the state if the file has been deleted, so that the caller can retry.
+            tempFile.delete();
+            tempFile = null;
+            state = State.RELEASED;
         }
     }
 }
@@ -21,6 +21,8 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 import org.apache.axiom.ext.io.ReadFromSupport;
 import org.apache.axiom.ext.io.StreamCopyException;
@@ -95,6 +97,23 @@ public interface WritableBlob extends Blob {
      */
     long readFrom(InputStream in) throws StreamCopyException;
 
+    /**
+     * Read data from the given channel and write it to the blob. This method has the same semantics
+     * as {@link #readFrom(InputStream)}, but allows implementations to transfer the data without
+     * intermediate byte arrays. The channel is expected to be in blocking mode.
+     *
+     * <p>The default implementation wraps the channel in an input stream and delegates to {@link
+     * #readFrom(InputStream)}.
+     *
+     * @param in A channel to read data from. This method will not close the channel.
+     * @return the number of bytes transferred
+     * @throws StreamCopyException
+     * @throws IllegalStateException if the blob is not in state NEW
+     */
+    default long readFrom(ReadableByteChannel in) throws StreamCopyException {
+        return readFrom(Channels.newInputStream(in));
+    }
+
     /**
      * Release all resources held by this blob. This method will put the blob into the RELEASED
      * state and the content will no longer be accessible.
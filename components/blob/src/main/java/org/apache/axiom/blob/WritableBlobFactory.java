@@ -26,4 +26,22 @@ public interface WritableBlobFactory<T extends WritableBlob> {
      * @return the newly created instance
      */
     T createBlob();
+
+    /**
+     * Create a new {@link WritableBlob} instance for content of approximately known size. The
+     * factory may use this information to select the most appropriate storage, e.g. to allocate a
+     * memory buffer of the right size or to store large content in a file straight away. The
+     * returned blob must accept any amount of data, even if the hints turn out to be wrong.
+     *
+     * <p>The default implementation ignores the hints and delegates to {@link #createBlob()}.
+     *
+     * @param expectedSize the expected size of the content (e.g. as specified by a {@code
+     *     Content-Length} header), or -1 if unknown
+     * @param maxSize an upper bound for the size of the content (e.g. the length of the message
+     *     containing the content), or -1 if unknown
+     * @return the newly created instance
+     */
+    default T createBlob(long expectedSize, long maxSize) {
+        return createBlob();
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.axiom.blob.suite.WritableBlobTestSuiteBuilder;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class BlobMemoryBudgetTest extends TestCase {
+    public static TestSuite suite() {
+        BlobMemoryBudget budget = new BlobMemoryBudget(64 * 1024);
+        TestSuite suite =
+                new WritableBlobTestSuiteBuilder(
+                                () ->
+                                        Blobs.createOverflowableBlob(
+                                                100000,
+                                                new TempFileBlobFactory("test", ".dat", null),
+                                                null,
+                                                budget),
+                                new int[] {10000, 100000, 200000},
+                                true,
+                                false)
+                        .build();
+        suite.addTestSuite(BlobMemoryBudgetTest.class);
+        return suite;
+    }
+
+    private static OverflowableBlob createBlob(BlobMemoryBudget budget) {
+        return Blobs.createOverflowableBlob(
+                16 * 1024, new TempFileBlobFactory("test", ".dat", null), null, budget);
+    }
+
+    public void testPressureSpill() throws Exception {
+        BlobMemoryBudget budget = new BlobMemoryBudget(8 * 1024);
+        OverflowableBlob blob1 = createBlob(budget);
+        OutputStream out = blob1.getOutputStream();
+        out.write(new byte[8 * 1024]);
+        out.close();
+        assertThat(blob1.getOverflowBlob()).isNull();
+        assertThat(budget.getUsedBytes()).isEqualTo(8 * 1024);
+        OverflowableBlob blob2 = createBlob(budget);
+        out = blob2.getOutputStream();
+        out.write(new byte[100]);
+        out.close();
+        assertThat(blob2.getOverflowBlob()).isNotNull();
+        assertThat(blob2.getSize()).isEqualTo(100);
+        assertThat(budget.getPressureSpillCount()).isEqualTo(1);
+        blob1.release();
+        blob2.release();
+        assertThat(budget.getUsedBytes()).isEqualTo(0);
+    }
+
+    public void testPressureSpillReadFrom() throws Exception {
+        BlobMemoryBudget budget = new BlobMemoryBudget(4 * 1024);
+        OverflowableBlob blob = createBlob(budget);
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        blob.readFrom(new ByteArrayInputStream(data));
+        assertThat(blob.getOverflowBlob()).isNotNull();
+        assertThat(blob.getSize()).isEqualTo(data.length);
+        assertThat(budget.getUsedBytes()).isEqualTo(0);
+        assertThat(budget.getPressureSpillCount()).isEqualTo(1);
+        byte[] content = new byte[data.length];
+        try (InputStream in = blob.getInputStream()) {
+            assertThat(in.readNBytes(content, 0, content.length)).isEqualTo(data.length);
+        }
+        assertThat(content).isEqualTo(data);
+        blob.release();
+    }
+
+    public void testReleaseOnCollection() throws Exception {
+        BlobMemoryBudget budget = new BlobMemoryBudget(64 * 1024);
+        OverflowableBlob blob = createBlob(budget);
+        OutputStream out = blob.getOutputStream();
+        out.write(new byte[1000]);
+        out.close();
+        assertThat(budget.getUsedBytes()).isGreaterThan(0L);
+        blob = null;
+        out = null;
+        for (int i = 0; i < 1000 && budget.getUsedBytes() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(budget.getUsedBytes()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.TestCase;
+
+public class ByteBufferBlobTest extends TestCase {
+    public void testCreateBlob() throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap("xxhello worldxx".getBytes(StandardCharsets.US_ASCII));
+        buffer.position(2);
+        buffer.limit(13);
+        Blob blob = Blobs.createBlob(buffer);
+        // Changing the position of the buffer must not affect the blob
+        buffer.position(5);
+        assertThat(blob.getSize()).isEqualTo(11);
+        assertThat(new String(blob.getInputStream().readAllBytes(), StandardCharsets.US_ASCII))
+                .isEqualTo("hello world");
+        assertThat(
+                        new String(
+                                blob.slice(6, 5).getInputStream().readAllBytes(),
+                                StandardCharsets.US_ASCII))
+                .isEqualTo("world");
+    }
+
+    public void testCreateBlobDirect() throws Exception {
+        byte[] data = "hello world".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+        Blob blob = Blobs.createBlob(buffer);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        blob.writeTo(baos);
+        assertThat(baos.toByteArray()).isEqualTo(data);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ChunkPoolTest {
+    @Test
+    public void testRecycle() throws Exception {
+        ChunkPool pool = new ChunkPool(1024 * 1024);
+        byte[] data = new byte[50000];
+        new Random().nextBytes(data);
+        for (int i = 0; i < 3; i++) {
+            MemoryBlob blob = Blobs.createMemoryBlob(pool);
+            blob.readFrom(new ByteArrayInputStream(data));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            blob.writeTo(out);
+            assertThat(out.toByteArray()).isEqualTo(data);
+            blob.release();
+        }
+        // 4096 + 8192 + 16384 + 32768 >= 50000
+        assertThat(pool.getMissCount()).isEqualTo(4);
+        assertThat(pool.getHitCount()).isEqualTo(8);
+        assertThat(pool.getPooledBytes()).isEqualTo(4096 + 8192 + 16384 + 32768);
+        pool.clear();
+        assertThat(pool.getPooledBytes()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLimit() {
+        ChunkPool pool = new ChunkPool(8192);
+        pool.recycle(new byte[4096]);
+        pool.recycle(new byte[8192]);
+        pool.recycle(new byte[4096]);
+        assertThat(pool.getPooledBytes()).isEqualTo(8192);
+    }
+
+    @Test
+    public void testSizeClasses() {
+        ChunkPool pool = new ChunkPool(Long.MAX_VALUE);
+        assertThat(pool.allocate(1)).hasLength(ChunkPool.MIN_CHUNK_SIZE);
+        assertThat(pool.allocate(5000)).hasLength(8192);
+        assertThat(pool.allocate(ChunkPool.MAX_CHUNK_SIZE + 1))
+                .hasLength(ChunkPool.MAX_CHUNK_SIZE + 1);
+        pool.recycle(new byte[5000]);
+        assertThat(pool.getPooledBytes()).isEqualTo(0);
+    }
+}
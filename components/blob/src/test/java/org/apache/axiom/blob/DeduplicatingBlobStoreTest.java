@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.axiom.blob.suite.WritableBlobTestSuiteBuilder;
+import org.apache.commons.io.IOUtils;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class DeduplicatingBlobStoreTest extends TestCase {
+    public static TestSuite suite() {
+        TestSuite suite =
+                new WritableBlobTestSuiteBuilder(
+                                Blobs.createDeduplicatingBlobStore(MemoryBlob.FACTORY, 4),
+                                new int[] {10000},
+                                true,
+                                false)
+                        .build();
+        suite.addTestSuite(DeduplicatingBlobStoreTest.class);
+        return suite;
+    }
+
+    private static byte[] createData(int size) {
+        byte[] data = new byte[size];
+        new Random().nextBytes(data);
+        return data;
+    }
+
+    private static WritableBlob write(DeduplicatingBlobStore store, byte[] data) throws Exception {
+        WritableBlob blob = store.createBlob();
+        OutputStream out = blob.getOutputStream();
+        out.write(data);
+        out.close();
+        return blob;
+    }
+
+    public void testDeduplication() throws Exception {
+        TempFileBlobFactory storageFactory = new TempFileBlobFactory("test", ".dat", null);
+        DeduplicatingBlobStore store = Blobs.createDeduplicatingBlobStore(storageFactory, 10);
+        byte[] data = createData(5000);
+        WritableBlob blob1 = write(store, data);
+        WritableBlob blob2 = store.createBlob();
+        blob2.readFrom(new ByteArrayInputStream(data));
+        assertThat(store.getEntryCount()).isEqualTo(1);
+        assertThat(store.getStoredBytes()).isEqualTo(data.length);
+        assertThat(store.getMissCount()).isEqualTo(1);
+        assertThat(store.getHitCount()).isEqualTo(1);
+        assertThat(store.getDeduplicatedBytes()).isEqualTo(data.length);
+        assertThat(storageFactory.getTempFileCount()).isEqualTo(1);
+        assertThat(IOUtils.toByteArray(blob2.getInputStream())).isEqualTo(data);
+        blob1.release();
+        blob2.release();
+        // The entry is retained so that content received later is deduplicated as well.
+        assertThat(store.getEntryCount()).isEqualTo(1);
+        WritableBlob blob3 = write(store, data);
+        assertThat(store.getHitCount()).isEqualTo(2);
+        assertThat(IOUtils.toByteArray(blob3.getInputStream())).isEqualTo(data);
+        blob3.release();
+        store.clear();
+        assertThat(store.getEntryCount()).isEqualTo(0);
+        assertThat(store.getStoredBytes()).isEqualTo(0);
+        assertThat(storageFactory.getTempFileCount()).isEqualTo(0);
+    }
+
+    public void testEviction() throws Exception {
+        DeduplicatingBlobStore store = Blobs.createDeduplicatingBlobStore(MemoryBlob.FACTORY, 2);
+        byte[][] data = new byte[4][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = createData(1000);
+            write(store, data[i]).release();
+        }
+        assertThat(store.getEntryCount()).isEqualTo(2);
+        assertThat(store.getEvictionCount()).isEqualTo(2);
+        // The least recently used entries have been evicted.
+        write(store, data[3]).release();
+        assertThat(store.getHitCount()).isEqualTo(1);
+        write(store, data[0]).release();
+        assertThat(store.getHitCount()).isEqualTo(1);
+        assertThat(store.getEvictionCount()).isEqualTo(3);
+    }
+
+    public void testReferencedEntriesNotEvicted() throws Exception {
+        DeduplicatingBlobStore store = Blobs.createDeduplicatingBlobStore(MemoryBlob.FACTORY, 0);
+        byte[] data = createData(1000);
+        WritableBlob blob = write(store, data);
+        write(store, createData(1000)).release();
+        assertThat(store.getEntryCount()).isEqualTo(1);
+        assertThat(IOUtils.toByteArray(blob.getInputStream())).isEqualTo(data);
+        blob.release();
+        assertThat(store.getEntryCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import org.apache.axiom.blob.suite.WritableBlobTestSuiteBuilder;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class DigestingBlobTest extends TestCase {
+    public static TestSuite suite() {
+        TestSuite suite =
+                new WritableBlobTestSuiteBuilder(
+                                Blobs.createDigestingBlobFactory(MemoryBlob.FACTORY, "SHA-256"),
+                                new int[] {10000},
+                                true,
+                                false)
+                        .build();
+        suite.addTestSuite(DigestingBlobTest.class);
+        return suite;
+    }
+
+    private static byte[] createData() {
+        byte[] data = new byte[100000];
+        new Random().nextBytes(data);
+        return data;
+    }
+
+    private static void checkDigests(WritableBlob blob, byte[] data) throws Exception {
+        assertThat(blob.getDigest("SHA-256"))
+                .isEqualTo(MessageDigest.getInstance("SHA-256").digest(data));
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        assertThat(blob.getDigest("CRC32C"))
+                .isEqualTo(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+        assertThat(blob.getDigest("MD5")).isNull();
+    }
+
+    public void testOutputStream() throws Exception {
+        byte[] data = createData();
+        WritableBlob blob =
+                Blobs.createDigestingBlobFactory(MemoryBlob.FACTORY, "SHA-256", "CRC32C")
+                        .createBlob();
+        OutputStream out = blob.getOutputStream();
+        out.write(data, 0, 1000);
+        out.write(data[1000]);
+        out.write(data, 1001, data.length - 1001);
+        assertThrows(IllegalStateException.class, () -> blob.getDigest("SHA-256"));
+        out.close();
+        checkDigests(blob, data);
+    }
+
+    public void testReadFrom() throws Exception {
+        byte[] data = createData();
+        WritableBlob blob =
+                Blobs.createDigestingBlobFactory(
+                                new TempFileBlobFactory("test", ".dat", null), "SHA-256", "CRC32C")
+                        .createBlob();
+        try {
+            blob.readFrom(new ByteArrayInputStream(data));
+            checkDigests(blob, data);
+        } finally {
+            blob.release();
+        }
+    }
+
+    public void testReadFromChannel() throws Exception {
+        byte[] data = createData();
+        WritableBlob blob =
+                Blobs.createDigestingBlobFactory(DirectMemoryBlob.FACTORY, "SHA-256", "CRC32C")
+                        .createBlob();
+        blob.readFrom(Channels.newChannel(new ByteArrayInputStream(data)));
+        checkDigests(blob, data);
+    }
+
+    public void testUnsupportedAlgorithm() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Blobs.createDigestingBlobFactory(MemoryBlob.FACTORY, "NO-SUCH-ALGORITHM"));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+
+import org.apache.axiom.blob.suite.WritableBlobTestSuiteBuilder;
+import org.apache.commons.io.IOUtils;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class DirectMemoryBlobTest extends TestCase {
+    public static TestSuite suite() {
+        TestSuite suite =
+                new WritableBlobTestSuiteBuilder(
+                                DirectMemoryBlob.FACTORY, new int[] {10000, 100000}, true, false)
+                        .build();
+        suite.addTestSuite(DirectMemoryBlobTest.class);
+        return suite;
+    }
+
+    public void testGetBuffers() throws Exception {
+        byte[] data = new byte[100000];
+        new Random().nextBytes(data);
+        DirectMemoryBlob blob = Blobs.createDirectMemoryBlob();
+        try {
+            blob.readFrom(new ByteArrayInputStream(data));
+            ByteBuffer[] buffers = blob.getBuffers();
+            assertThat(buffers.length).isGreaterThan(1);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            WritableByteChannel channel = Channels.newChannel(baos);
+            for (ByteBuffer buffer : buffers) {
+                assertThat(buffer.isDirect()).isTrue();
+                assertThat(buffer.isReadOnly()).isTrue();
+                channel.write(buffer);
+            }
+            assertThat(baos.toByteArray()).isEqualTo(data);
+            // The buffers are independent views
+            assertThat(blob.getBuffers()[0].position()).isEqualTo(0);
+        } finally {
+            blob.release();
+        }
+    }
+
+    public void testSegmentsRecycled() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool(1024 * 1024);
+        DirectMemoryBlob blob = new DirectMemoryBlobImpl(pool);
+        blob.readFrom(new ByteArrayInputStream(new byte[10000]));
+        blob.release();
+        // Segments of 4096 and 8192 bytes
+        assertThat(pool.getPooledBytes()).isEqualTo(12288);
+        byte[] data = new byte[10000];
+        new Random().nextBytes(data);
+        blob = new DirectMemoryBlobImpl(pool);
+        blob.readFrom(new ByteArrayInputStream(data));
+        assertThat(pool.getPooledBytes()).isEqualTo(0);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        blob.writeTo(baos);
+        assertThat(baos.toByteArray()).isEqualTo(data);
+        blob.release();
+        assertThat(pool.getPooledBytes()).isEqualTo(12288);
+    }
+
+    public void testPoolBounded() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool(8192);
+        DirectMemoryBlob blob = new DirectMemoryBlobImpl(pool);
+        blob.readFrom(new ByteArrayInputStream(new byte[10000]));
+        blob.release();
+        assertThat(pool.getPooledBytes()).isAtMost(8192);
+    }
+
+    public void testReadOnceDoesntRecycle() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool(1024 * 1024);
+        byte[] data = new byte[10000];
+        new Random().nextBytes(data);
+        DirectMemoryBlob blob = new DirectMemoryBlobImpl(pool);
+        blob.readFrom(new ByteArrayInputStream(data));
+        InputStream in = blob.readOnce();
+        assertThat(pool.getPooledBytes()).isEqualTo(0);
+        // The segments must not be reused while the stream is still in use
+        new DirectMemoryBlobImpl(pool).readFrom(new ByteArrayInputStream(new byte[10000]));
+        assertThat(IOUtils.toByteArray(in)).isEqualTo(data);
+    }
+}
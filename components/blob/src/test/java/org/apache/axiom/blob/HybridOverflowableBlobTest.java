@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.axiom.blob.suite.WritableBlobTestSuiteBuilder;
+import org.apache.commons.io.IOUtils;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class HybridOverflowableBlobTest extends TestCase {
+    public static TestSuite suite() {
+        TestSuite suite =
+                new WritableBlobTestSuiteBuilder(
+                                () ->
+                                        Blobs.createHybridOverflowableBlob(
+                                                16 * 1024,
+                                                new TempFileBlobFactory("test", ".dat", null)),
+                                new int[] {10000, 16 * 1024, 100000},
+                                true,
+                                false)
+                        .build();
+        suite.addTestSuite(HybridOverflowableBlobTest.class);
+        return suite;
+    }
+
+    public void testKeepPrefix() throws Exception {
+        byte[] data = new byte[40000];
+        new Random().nextBytes(data);
+        OverflowableBlob blob =
+                Blobs.createHybridOverflowableBlob(
+                        16 * 1024, new TempFileBlobFactory("test", ".dat", null));
+        try {
+            OutputStream out = blob.getOutputStream();
+            out.write(data, 0, 10000);
+            out.write(data, 10000, 30000);
+            out.close();
+            assertThat(blob.getSize()).isEqualTo(data.length);
+            assertThat(blob.getOverflowBlob().getSize()).isEqualTo(data.length - 16 * 1024);
+            assertThat(IOUtils.toByteArray(blob.getInputStream())).isEqualTo(data);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            blob.writeTo(baos);
+            assertThat(baos.toByteArray()).isEqualTo(data);
+            // A slice spanning the memory buffer and the overflow blob
+            assertThat(IOUtils.toByteArray(blob.slice(10000, 20000).getInputStream()))
+                    .isEqualTo(Arrays.copyOfRange(data, 10000, 30000));
+        } finally {
+            blob.release();
+        }
+    }
+
+    public void testPressureSpill() throws Exception {
+        BlobMemoryBudget budget = new BlobMemoryBudget(4 * 1024);
+        byte[] data = new byte[10000];
+        new Random().nextBytes(data);
+        OverflowableBlob blob =
+                Blobs.createHybridOverflowableBlob(
+                        16 * 1024, new TempFileBlobFactory("test", ".dat", null), null, budget);
+        try {
+            OutputStream out = blob.getOutputStream();
+            out.write(data);
+            out.close();
+            assertThat(blob.getOverflowBlob().getSize()).isEqualTo(data.length - 4 * 1024);
+            assertThat(budget.getPressureSpillCount()).isEqualTo(1);
+            assertThat(IOUtils.toByteArray(blob.getInputStream())).isEqualTo(data);
+        } finally {
+            blob.release();
+        }
+        assertThat(budget.getUsedBytes()).isEqualTo(0);
+    }
+}
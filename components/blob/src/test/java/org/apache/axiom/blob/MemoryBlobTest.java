@@ -18,6 +18,13 @@
  */
 package org.apache.axiom.blob;
 
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
 import org.apache.axiom.blob.suite.WritableBlobTestSuiteBuilder;
 
 import junit.framework.TestCase;
@@ -25,7 +32,76 @@ import junit.framework.TestSuite;
 
 public class MemoryBlobTest extends TestCase {
     public static TestSuite suite() {
-        return new WritableBlobTestSuiteBuilder(MemoryBlob.FACTORY, new int[] {10000}, true, false)
-                .build();
+        TestSuite suite =
+                new WritableBlobTestSuiteBuilder(MemoryBlob.FACTORY, new int[] {10000}, true, false)
+                        .build();
+        suite.addTest(
+                new WritableBlobTestSuiteBuilder(
+                                () -> Blobs.createMemoryBlob(null, 1000),
+                                new int[] {10000},
+                                true,
+                                false)
+                        .build());
+        suite.addTestSuite(MemoryBlobTest.class);
+        return suite;
+    }
+
+    private static byte[] randomData(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    public void testToByteBufferSingleChunk() throws Exception {
+        byte[] data = randomData(10000);
+        MemoryBlob blob = MemoryBlob.FACTORY.createBlob(data.length, -1);
+        blob.readFrom(new ByteArrayInputStream(data));
+        ByteBuffer buffer = blob.toByteBuffer();
+        assertThat(buffer.isReadOnly()).isTrue();
+        assertThat(buffer.remaining()).isEqualTo(data.length);
+        // The buffer should wrap the chunk, so the content must be the same across calls
+        assertThat(blob.toByteBuffer()).isEqualTo(buffer);
+        assertThat(buffer).isEqualTo(ByteBuffer.wrap(data));
+    }
+
+    public void testToByteBufferMultipleChunks() throws Exception {
+        byte[] data = randomData(100000);
+        for (MemoryBlob blob :
+                new MemoryBlob[] {Blobs.createMemoryBlob(), Blobs.createDirectMemoryBlob()}) {
+            blob.readFrom(new ByteArrayInputStream(data));
+            ByteBuffer buffer = blob.toByteBuffer();
+            assertThat(buffer.isReadOnly()).isTrue();
+            assertThat(buffer).isEqualTo(ByteBuffer.wrap(data));
+            blob.release();
+        }
+    }
+
+    public void testToByteBufferEmpty() throws Exception {
+        MemoryBlob blob = Blobs.createMemoryBlob();
+        blob.getOutputStream().close();
+        assertThat(blob.toByteBuffer().remaining()).isEqualTo(0);
+    }
+
+    public void testToByteBufferNotCommitted() {
+        MemoryBlob blob = Blobs.createMemoryBlob();
+        assertThrows(IllegalStateException.class, blob::toByteBuffer);
+        blob.getOutputStream();
+        assertThrows(IllegalStateException.class, blob::toByteBuffer);
+    }
+
+    public void testMaxChunkSize() throws Exception {
+        byte[] data = randomData(100000);
+        MemoryBlob blob = Blobs.createMemoryBlob(null, 8192);
+        blob.readFrom(new ByteArrayInputStream(data));
+        assertThat(blob.getSize()).isEqualTo(data.length);
+        assertThat(blob.toByteBuffer()).isEqualTo(ByteBuffer.wrap(data));
+        ByteBuffer[] chunks = ((MemoryBlobImpl) blob).getBuffers();
+        for (ByteBuffer chunk : chunks) {
+            assertThat(chunk.capacity()).isAtMost(8192);
+        }
+    }
+
+    public void testInvalidMaxChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> Blobs.createMemoryBlob(null, 0));
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.axiom.blob.suite.WritableBlobTestSuiteBuilder;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class SizeHintTest extends TestCase {
+    public static TestSuite suite() {
+        TestSuite suite = new TestSuite();
+        // Hint matching one of the sizes used by the test suite, and hints that are too small
+        suite.addTest(
+                new WritableBlobTestSuiteBuilder(
+                                () -> MemoryBlob.FACTORY.createBlob(10000, -1),
+                                new int[] {10000, 100000},
+                                true,
+                                false)
+                        .build());
+        WritableBlobFactory<WritableBlob> factory =
+                Blobs.createOverflowableBlobFactory(
+                        16 * 1024, new TempFileBlobFactory("test", ".dat", null));
+        suite.addTest(
+                new WritableBlobTestSuiteBuilder(
+                                () -> factory.createBlob(100, -1),
+                                new int[] {10000, 100000},
+                                true,
+                                false)
+                        .build());
+        suite.addTest(
+                new WritableBlobTestSuiteBuilder(
+                                () -> factory.createBlob(-1, 1000), new int[] {10000}, true, false)
+                        .build());
+        suite.addTestSuite(SizeHintTest.class);
+        return suite;
+    }
+
+    public void testOverflowableBlobFactory() throws Exception {
+        TempFileBlobFactory tempFileBlobFactory = new TempFileBlobFactory("test", ".dat", null);
+        WritableBlobFactory<WritableBlob> factory =
+                Blobs.createOverflowableBlobFactory(16 * 1024, tempFileBlobFactory);
+        assertThat(factory.createBlob()).isInstanceOf(OverflowableBlob.class);
+        assertThat(factory.createBlob(-1, -1)).isInstanceOf(OverflowableBlob.class);
+        assertThat(factory.createBlob(-1, 100000)).isInstanceOf(OverflowableBlob.class);
+        WritableBlob blob = factory.createBlob(100000, -1);
+        assertThat(blob).isNotInstanceOf(OverflowableBlob.class);
+        blob.readFrom(new ByteArrayInputStream(new byte[100000]));
+        assertThat(tempFileBlobFactory.getTempFileCount()).isEqualTo(1);
+        blob.release();
+        blob = factory.createBlob(1000, -1);
+        blob.readFrom(new ByteArrayInputStream(new byte[1000]));
+        assertThat(((OverflowableBlob) blob).getOverflowBlob()).isNull();
+        blob.release();
+        // The maximum size is only an upper bound and must not be used as the buffer size
+        blob = factory.createBlob(-1, 1000);
+        blob.readFrom(new ByteArrayInputStream(new byte[2000]));
+        assertThat(((OverflowableBlob) blob).getOverflowBlob()).isNull();
+        blob.release();
+        assertThat(tempFileBlobFactory.getTempFileCount()).isEqualTo(0);
+    }
+}
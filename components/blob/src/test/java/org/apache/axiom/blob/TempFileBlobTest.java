@@ -18,18 +18,167 @@
  */
 package org.apache.axiom.blob;
 
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.file.Files;
+
 import org.apache.axiom.blob.suite.WritableBlobTestSuiteBuilder;
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.testutils.io.ExceptionInputStream;
+import org.apache.commons.io.input.NullInputStream;
 
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 public class TempFileBlobTest extends TestCase {
     public static TestSuite suite() {
-        return new WritableBlobTestSuiteBuilder(
-                        new TempFileBlobFactory("test", ".dat", null),
-                        new int[] {10000},
-                        false,
-                        true)
-                .build();
+        TestSuite suite =
+                new WritableBlobTestSuiteBuilder(
+                                new TempFileBlobFactory("test", ".dat", null),
+                                new int[] {10000},
+                                false,
+                                true)
+                        .build();
+        suite.addTestSuite(TempFileBlobTest.class);
+        return suite;
+    }
+
+    public void testTempFileTracking() throws Exception {
+        TempFileBlobFactory factory = Blobs.createTempFileBlobFactory("test", ".dat", null);
+        WritableBlob blob = factory.createBlob();
+        assertThat(factory.getTempFileCount()).isEqualTo(0);
+        OutputStream out = blob.getOutputStream();
+        out.write(new byte[1000]);
+        out.close();
+        assertThat(factory.getTempFileCount()).isEqualTo(1);
+        assertThat(factory.getTempFileBytes()).isEqualTo(1000);
+        blob.release();
+        assertThat(factory.getTempFileCount()).isEqualTo(0);
+        assertThat(factory.getTempFileBytes()).isEqualTo(0);
+    }
+
+    public void testReleaseRetriedAfterFailure() throws Exception {
+        File dir = Files.createTempDirectory("test").toFile();
+        try {
+            TempFileBlobFactory factory = Blobs.createTempFileBlobFactory("test", ".dat", dir);
+            WritableBlob blob = factory.createBlob();
+            blob.getOutputStream().close();
+            File[] files = dir.listFiles();
+            assertThat(files).hasLength(1);
+            // Replace the file by a non empty directory so that it can't be deleted
+            File file = files[0];
+            assertThat(file.delete()).isTrue();
+            assertThat(file.mkdir()).isTrue();
+            File child = new File(file, "child");
+            assertThat(child.createNewFile()).isTrue();
+            try {
+                blob.release();
+                fail("Expected IOException");
+            } catch (IOException ex) {
+                // Expected
+            }
+            assertThat(factory.getTempFileCount()).isEqualTo(1);
+            assertThat(child.delete()).isTrue();
+            blob.release();
+            assertThat(factory.getTempFileCount()).isEqualTo(0);
+            assertThat(file.exists()).isFalse();
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    public void testReadFromChannelWithErrorDoesntCommit() throws Exception {
+        WritableBlob blob = Blobs.createTempFileBlobFactory("test", ".dat", null).createBlob();
+        try {
+            ExceptionInputStream in = new ExceptionInputStream(new NullInputStream(1000), 500);
+            assertThrows(StreamCopyException.class, () -> blob.readFrom(Channels.newChannel(in)));
+            assertThrows(IllegalStateException.class, blob::getInputStream);
+        } finally {
+            blob.release();
+        }
+    }
+
+    public void testReadFromNonBlockingChannel() throws Exception {
+        WritableBlob blob = Blobs.createTempFileBlobFactory("test", ".dat", null).createBlob();
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.source().configureBlocking(false);
+            assertThrows(IllegalBlockingModeException.class, () -> blob.readFrom(pipe.source()));
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+            blob.release();
+        }
+    }
+
+    public void testWriteToNonBlockingChannel() throws Exception {
+        WritableBlob blob = Blobs.createTempFileBlobFactory("test", ".dat", null).createBlob();
+        Pipe pipe = Pipe.open();
+        try {
+            OutputStream out = blob.getOutputStream();
+            out.write(new byte[100000]);
+            out.close();
+            pipe.sink().configureBlocking(false);
+            assertThrows(IllegalBlockingModeException.class, () -> blob.writeTo(pipe.sink()));
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+            blob.release();
+        }
+    }
+
+    public void testCleanupOnCollection() throws Exception {
+        TempFileBlobFactory factory = Blobs.createTempFileBlobFactory("test", ".dat", null);
+        WritableBlob blob = factory.createBlob();
+        blob.getOutputStream().close();
+        assertThat(factory.getTempFileCount()).isEqualTo(1);
+        blob = null;
+        for (int i = 0; i < 1000 && factory.getTempFileCount() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(factory.getTempFileCount()).isEqualTo(0);
+    }
+
+    private static Blob createSlice(TempFileBlobFactory factory) throws IOException {
+        WritableBlob blob = factory.createBlob();
+        OutputStream out = blob.getOutputStream();
+        for (int i = 0; i < 1000; i++) {
+            out.write(i);
+        }
+        out.close();
+        return blob.slice(100, 10);
+    }
+
+    public void testSliceKeepsFileAlive() throws Exception {
+        TempFileBlobFactory factory = Blobs.createTempFileBlobFactory("test", ".dat", null);
+        // Only the slice must remain reachable after this call
+        Blob slice = createSlice(factory);
+        for (int i = 0; i < 100; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(factory.getTempFileCount()).isEqualTo(1);
+        byte[] content = new byte[10];
+        InputStream in = slice.getInputStream();
+        try {
+            assertThat(in.read(content)).isEqualTo(10);
+        } finally {
+            in.close();
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThat(content[i]).isEqualTo((byte) (100 + i));
+        }
     }
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob.suite;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.axiom.blob.WritableBlob;
+import org.apache.axiom.blob.WritableBlobFactory;
+
+public class TestOpenChannel extends SizeSensitiveWritableBlobTestCase {
+    public TestOpenChannel(WritableBlobFactory<?> factory, int size) {
+        super(factory, State.NEW, size);
+    }
+
+    private static byte[] readFully(ReadableByteChannel channel, int length) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                break;
+            }
+        }
+        assertThat(buffer.hasRemaining()).isFalse();
+        assertThat(channel.read(ByteBuffer.allocate(1))).isEqualTo(-1);
+        return buffer.array();
+    }
+
+    @Override
+    protected void runTest(WritableBlob blob) throws Throwable {
+        byte[] data = new byte[size];
+        new Random().nextBytes(data);
+        OutputStream out = blob.getOutputStream();
+        out.write(data);
+        out.close();
+        try (ReadableByteChannel channel = blob.openChannel()) {
+            assertThat(readFully(channel, size)).isEqualTo(data);
+            if (channel instanceof SeekableByteChannel) {
+                SeekableByteChannel seekableChannel = (SeekableByteChannel) channel;
+                assertThat(seekableChannel.size()).isEqualTo(size);
+                seekableChannel.position(size / 3);
+                assertThat(readFully(seekableChannel, size - size / 3))
+                        .isEqualTo(Arrays.copyOfRange(data, size / 3, size));
+            }
+        }
+    }
+}
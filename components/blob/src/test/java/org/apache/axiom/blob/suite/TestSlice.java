@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob.suite;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.blob.WritableBlob;
+import org.apache.axiom.blob.WritableBlobFactory;
+import org.apache.commons.io.IOUtils;
+
+public class TestSlice extends SizeSensitiveWritableBlobTestCase {
+    public TestSlice(WritableBlobFactory<?> factory, int size) {
+        super(factory, State.NEW, size);
+    }
+
+    @Override
+    protected void runTest(WritableBlob blob) throws Throwable {
+        byte[] data = new byte[size];
+        new Random().nextBytes(data);
+        OutputStream out = blob.getOutputStream();
+        out.write(data);
+        out.close();
+        int offset = size / 4;
+        int length = size / 2;
+        Blob slice = blob.slice(offset, length);
+        assertThat(slice.getSize()).isEqualTo(length);
+        assertThat(IOUtils.toByteArray(slice.getInputStream()))
+                .isEqualTo(Arrays.copyOfRange(data, offset, offset + length));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        slice.writeTo(baos);
+        assertThat(baos.toByteArray()).isEqualTo(Arrays.copyOfRange(data, offset, offset + length));
+        try (InputStream in = slice.getInputStream()) {
+            assertThat(in.skip(length / 2)).isEqualTo(length / 2);
+            assertThat(IOUtils.toByteArray(in))
+                    .isEqualTo(Arrays.copyOfRange(data, offset + length / 2, offset + length));
+        }
+        Blob subSlice = slice.slice(1, length - 2);
+        assertThat(IOUtils.toByteArray(subSlice.getInputStream()))
+                .isEqualTo(Arrays.copyOfRange(data, offset + 1, offset + length - 1));
+        assertThat(blob.slice(0, size).getSize()).isEqualTo(size);
+        assertThat(blob.slice(size, 0).getSize()).isEqualTo(0);
+        assertThrows(IndexOutOfBoundsException.class, () -> blob.slice(offset, size));
+        assertThrows(IndexOutOfBoundsException.class, () -> slice.slice(-1, 1));
+    }
+}
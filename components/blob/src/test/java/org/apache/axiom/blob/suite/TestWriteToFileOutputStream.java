@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob.suite;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.apache.axiom.blob.WritableBlob;
+import org.apache.axiom.blob.WritableBlobFactory;
+
+/**
+ * Tests {@link WritableBlob#writeTo(OutputStream)} with a {@link FileOutputStream}, i.e. with an
+ * output stream for which implementations may use {@link java.nio.channels.FileChannel}.
+ */
+public class TestWriteToFileOutputStream extends SizeSensitiveWritableBlobTestCase {
+    public TestWriteToFileOutputStream(WritableBlobFactory<?> factory, int size) {
+        super(factory, State.NEW, size);
+    }
+
+    @Override
+    protected void runTest(WritableBlob blob) throws Throwable {
+        Random random = new Random();
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        OutputStream out = blob.getOutputStream();
+        out.write(data);
+        out.close();
+        File file = File.createTempFile("test", ".dat");
+        try {
+            FileOutputStream fos = new FileOutputStream(file);
+            try {
+                fos.write(1);
+                blob.writeTo(fos);
+                fos.write(2);
+            } finally {
+                fos.close();
+            }
+            byte[] content = Files.readAllBytes(file.toPath());
+            assertThat(content).hasLength(size + 2);
+            assertThat(content[0]).isEqualTo(1);
+            assertThat(content[size + 1]).isEqualTo(2);
+            byte[] actual = new byte[size];
+            System.arraycopy(content, 1, actual, 0, size);
+            assertThat(actual).isEqualTo(data);
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -55,6 +55,7 @@ public class WritableBlobTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new TestReadFromIllegalState(factory, State.COMMITTED));
         addTest(new TestReadFromIllegalState(factory, State.RELEASED));
         addTest(new TestReadFromWithError(factory));
+        addTest(new TestReadFromChannelWithError(factory));
         addTest(new TestReadZeroLength(factory));
         addTest(new TestReleaseTwice(factory));
         addTest(new TestResetWithoutMark(factory));
@@ -71,11 +72,16 @@ public class WritableBlobTestSuiteBuilder extends MatrixTestSuiteBuilder {
     private void addTests(int size) {
         addTest(new TestMarkReset(factory, size));
         addTest(new TestReadFrom(factory, size));
+        addTest(new TestReadFromChannel(factory, size));
+        addTest(new TestOpenChannel(factory, size));
+        addTest(new TestSlice(factory, size));
         if (outputStreamHasReadFromSupport) {
             addTest(new TestReadFromSupport(factory, size));
         }
         addTest(new TestRandomReadWrite(factory, size));
         addTest(new TestWriteTo(factory, size));
+        addTest(new TestWriteToFileOutputStream(factory, size));
+        addTest(new TestWriteToChannel(factory, size));
         if (writeToUsesReadFromSupport) {
             addTest(new TestWriteToWithReadFromSupport(factory, size));
         }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer;
+
+/**
+ * Locates runs of characters that can be written without escaping in character data and attribute
+ * values, i.e. printable ASCII characters other than {@code "}, {@code &}, {@code <}, {@code >} and
+ * {@code ]}. Characters are examined four at a time by packing them into a {@code long} and testing
+ * all 16-bit lanes at once (SWAR).
+ */
+final class CharacterScanner {
+    private static final long ONES = 0x0001000100010001L;
+    private static final long HIGH = 0x8000800080008000L;
+    private static final long LOW = 0x7FFF7FFF7FFF7FFFL;
+
+    /** Indicates which ASCII characters are not clean. */
+    private static final boolean[] special = new boolean[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            special[c] = true;
+        }
+        special[0x7F] = true;
+        special['"'] = true;
+        special['&'] = true;
+        special['<'] = true;
+        special['>'] = true;
+        special[']'] = true;
+    }
+
+    private CharacterScanner() {}
+
+    /**
+     * Find the first character that is not clean.
+     *
+     * @param chars the characters to scan
+     * @param start the index of the first character to examine
+     * @param end the index after the last character to examine
+     * @return the index of the first character that is not clean, or {@code end} if all characters
+     *     are clean
+     */
+    static int skipClean(char[] chars, int start, int end) {
+        int i = start;
+        for (int max = end - 4; i <= max; i += 4) {
+            long word =
+                    chars[i]
+                            | (long) chars[i + 1] << 16
+                            | (long) chars[i + 2] << 32
+                            | (long) chars[i + 3] << 48;
+            if (dirtyLanes(word) != 0) {
+                break;
+            }
+        }
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= 128 || special[c]) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Determine which of the four characters packed into a word are not clean.
+     *
+     * @param word four characters, one per 16-bit lane
+     * @return a mask with the high bit set in each lane that contains a character that is not clean
+     */
+    private static long dirtyLanes(long word) {
+        long low = word & LOW;
+        // No carry or borrow can cross lanes in the following expressions because the high bits
+        // have been cleared (resp. set) before the addition (resp. subtraction).
+        long nonAscii = (low + ONES * (0x8000 - 0x7F)) | word;
+        long control = ~((low | HIGH) - ONES * 0x20);
+        return (nonAscii
+                        | control
+                        | equalLanes(word, '"')
+                        | equalLanes(word, '&')
+                        | equalLanes(word, '<')
+                        | equalLanes(word, '>')
+                        | equalLanes(word, ']'))
+                & HIGH;
+    }
+
+    /**
+     * Determine which of the four characters packed into a word are equal to a given character.
+     *
+     * @param word four characters, one per 16-bit lane
+     * @param c the character to compare with
+     * @return a value with the high bit set in each lane that is equal to {@code c}; the other bits
+     *     are undefined
+     */
+    private static long equalLanes(long word, char c) {
+        long diff = word ^ (ONES * c);
+        return ~(((diff & LOW) + LOW) | diff);
+    }
+}
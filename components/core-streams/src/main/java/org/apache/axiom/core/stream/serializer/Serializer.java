@@ -23,6 +23,8 @@ package org.apache.axiom.core.stream.serializer;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.core.stream.CharacterData;
 import org.apache.axiom.core.stream.CharacterDataSink;
@@ -102,6 +104,18 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
         outputStream = out;
     }
 
+    /**
+     * Create a serializer that encodes the output directly into pooled direct buffers and writes
+     * them to a channel.
+     *
+     * @param channel the channel to write to; must be in blocking mode
+     * @param encoding the name of the encoding
+     */
+    public Serializer(WritableByteChannel channel, String encoding) {
+        writer = XmlWriter.create(channel, encoding);
+        outputStream = Channels.newOutputStream(channel);
+    }
+
     private void switchContext(int context) throws StreamException {
         this.context = context;
         try {
@@ -321,6 +335,7 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
         final XmlWriter writer = this.writer;
         final int context = this.context;
         final String illegalCharacterSequence = illegalCharacterSequences[context];
+        final boolean escape = context == MIXED_CONTENT || context == ATTRIBUTE_VALUE;
 
         try {
             int i;
@@ -331,6 +346,19 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
             int matchedIllegalCharacters = this.matchedIllegalCharacters;
             int squareBrackets = this.squareBrackets;
             for (i = start; i < end; i++) {
+                if (escape) {
+                    // Skip characters that don't need any processing in bulk. They will be written
+                    // together with the next dirty character or at the end.
+                    int next = CharacterScanner.skipClean(chars, i, end);
+                    if (next != i) {
+                        squareBrackets = 0;
+                        i = next;
+                        if (i == end) {
+                            break;
+                        }
+                    }
+                }
+
                 char ch = chars[i];
 
                 if (illegalCharacterSequence != null) {
@@ -366,7 +394,7 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
                 String replacement = null;
                 boolean generateCharacterReference = false;
 
-                if (context == MIXED_CONTENT || context == ATTRIBUTE_VALUE) {
+                if (escape) {
                     if (ch <= 0x1F) {
                         // Range 0x00 through 0x1F inclusive
                         //
@@ -438,18 +466,21 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
 
                 int startClean = lastDirtyCharProcessed + 1;
                 int lengthClean = i - startClean;
-                if (replacement != null
-                        || generateCharacterReference
-                        || lengthClean == CHUNK_SIZE) {
+                if (replacement != null || generateCharacterReference) {
                     if (startClean < i) {
                         writer.write(chars, startClean, lengthClean);
                     }
                     if (replacement != null) {
                         writer.write(replacement);
-                    } else if (generateCharacterReference) {
+                    } else {
                         writer.writeCharacterReference(ch);
                     }
                     lastDirtyCharProcessed = i;
+                } else if (lengthClean >= CHUNK_SIZE) {
+                    // Write the clean characters preceding the current one; the current character
+                    // has no replacement and is written together with the next chunk.
+                    writer.write(chars, startClean, lengthClean);
+                    lastDirtyCharProcessed = i - 1;
                 }
             }
 
@@ -516,12 +547,7 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
         closeStartTag();
         try {
             switchContext(TAG);
-            writer.write('<');
-            if (!prefix.isEmpty()) {
-                writer.write(prefix);
-                writer.write(':');
-            }
-            writer.write(localName);
+            writer.writeStartTag(prefix, localName);
         } catch (IOException e) {
             throw new StreamException(e);
         }
@@ -574,13 +600,7 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
     private void writeAttribute(String prefix, String localName, String value)
             throws StreamException {
         try {
-            writer.write(' ');
-            if (!prefix.isEmpty()) {
-                writer.write(prefix);
-                writer.write(':');
-            }
-            writer.write(localName);
-            writer.write("=\"");
+            writer.writeAttributeName(prefix, localName);
             if (!value.isEmpty()) {
                 switchContext(ATTRIBUTE_VALUE);
                 characters(value);
@@ -635,14 +655,7 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
                 }
             } else {
                 switchContext(TAG);
-                writer.write("</");
-                String prefix = elementNameStack[2 * depth];
-                if (!prefix.isEmpty()) {
-                    writer.write(prefix);
-                    writer.write(':');
-                }
-                writer.write(elementNameStack[2 * depth + 1]);
-                writer.write('>');
+                writer.writeEndTag(elementNameStack[2 * depth], elementNameStack[2 * depth + 1]);
             }
             switchContext(MIXED_CONTENT);
         } catch (IOException ex) {
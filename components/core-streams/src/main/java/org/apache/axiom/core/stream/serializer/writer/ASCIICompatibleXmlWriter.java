@@ -19,36 +19,34 @@
 package org.apache.axiom.core.stream.serializer.writer;
 
 import java.io.IOException;
-import java.io.OutputStream;
 
 import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
 
+/**
+ * Base class for {@link XmlWriter} implementations for encodings that are ASCII compatible. Runs of
+ * ASCII characters are handled by the {@link ByteSink}, which encodes them directly into its
+ * buffer; only the remaining characters are passed to {@link #writeNonASCIICharacter(int)}.
+ */
 abstract class ASCIICompatibleXmlWriter extends XmlWriter {
-    private final OutputStream out;
-    final byte[] buffer = new byte[4096];
-    int bufferPosition;
+    private final ByteSink sink;
+    private final EncodedNameCache nameCache;
     private char highSurrogate;
 
-    ASCIICompatibleXmlWriter(OutputStream out) {
-        this.out = out;
+    ASCIICompatibleXmlWriter(ByteSink sink, EncodedNameCache nameCache) {
+        this.sink = sink;
+        this.nameCache = nameCache;
     }
 
     protected abstract void writeNonASCIICharacter(int codePoint) throws IOException;
 
     protected final void writeByte(byte b) throws IOException {
-        if (bufferPosition == buffer.length) {
-            flushBuffer();
-        }
-        buffer[bufferPosition++] = b;
+        sink.writeByte(b);
     }
 
     @Override
     public final void write(char c) throws IOException {
         if (c < 128 && highSurrogate == 0) {
-            if (bufferPosition == buffer.length) {
-                flushBuffer();
-            }
-            buffer[bufferPosition++] = (byte) c;
+            sink.writeByte((byte) c);
         } else {
             internalWrite(c);
         }
@@ -77,78 +75,78 @@ abstract class ASCIICompatibleXmlWriter extends XmlWriter {
 
     @Override
     public final void write(String s) throws IOException {
-        final byte[] buffer = this.buffer;
-        final int bufferLength = buffer.length;
-        int bufferPosition = this.bufferPosition;
-        int highSurrogate = this.highSurrogate;
-        for (int i = 0, length = s.length(); i < length; i++) {
-            char c = s.charAt(i);
-            if (c < 128 && highSurrogate == 0) {
-                if (bufferPosition == bufferLength) {
-                    out.write(buffer, 0, bufferLength);
-                    bufferPosition = 0;
-                }
-                buffer[bufferPosition++] = (byte) c;
-            } else {
-                this.bufferPosition = bufferPosition;
-                internalWrite(c);
-                bufferPosition = this.bufferPosition;
-                highSurrogate = this.highSurrogate;
+        int i = 0;
+        int length = s.length();
+        while (i < length) {
+            if (highSurrogate != 0) {
+                internalWrite(s.charAt(i++));
+                continue;
+            }
+            i = sink.writeASCII(s, i, length);
+            if (i < length) {
+                internalWrite(s.charAt(i++));
             }
         }
-        this.bufferPosition = bufferPosition;
     }
 
+    /**
+     * Write a range of characters. This is the path taken by character data coming from the
+     * serializer; runs of ASCII characters are handled in bulk in the same way as in {@link
+     * #write(String)}.
+     */
     @Override
     public final void write(char[] chars, int start, int length) throws IOException {
-        final byte[] buffer = this.buffer;
-        final int bufferLength = buffer.length;
-        int bufferPosition = this.bufferPosition;
-        int highSurrogate = this.highSurrogate;
-        for (int i = 0; i < length; i++) {
-            char c = chars[start + i];
-            if (c < 128 && highSurrogate == 0) {
-                if (bufferPosition == bufferLength) {
-                    out.write(buffer, 0, bufferLength);
-                    bufferPosition = 0;
-                }
-                buffer[bufferPosition++] = (byte) c;
-            } else {
-                this.bufferPosition = bufferPosition;
-                internalWrite(c);
-                bufferPosition = this.bufferPosition;
-                highSurrogate = this.highSurrogate;
+        int i = start;
+        int end = start + length;
+        while (i < end) {
+            if (highSurrogate != 0) {
+                internalWrite(chars[i++]);
+                continue;
+            }
+            i = sink.writeASCII(chars, i, end);
+            if (i < end) {
+                internalWrite(chars[i++]);
             }
         }
-        this.bufferPosition = bufferPosition;
     }
 
     @Override
-    public AbstractBase64EncodingOutputStream getBase64EncodingOutputStream() {
-        return new AbstractBase64EncodingOutputStream() {
-            @Override
-            protected void doWrite(byte[] b) throws IOException {
-                if (buffer.length - bufferPosition < 4) {
-                    ASCIICompatibleXmlWriter.this.flushBuffer();
-                }
-                System.arraycopy(b, 0, buffer, bufferPosition, 4);
-                bufferPosition += 4;
-            }
+    public final void writeStartTag(String prefix, String localName) throws IOException {
+        EncodedNameCache.Entry entry = highSurrogate == 0 ? nameCache.get(prefix, localName) : null;
+        if (entry == null) {
+            super.writeStartTag(prefix, localName);
+        } else {
+            sink.writeBytes(entry.startTag);
+        }
+    }
 
-            @Override
-            protected void flushBuffer() throws IOException {}
+    @Override
+    public final void writeEndTag(String prefix, String localName) throws IOException {
+        EncodedNameCache.Entry entry = highSurrogate == 0 ? nameCache.get(prefix, localName) : null;
+        if (entry == null) {
+            super.writeEndTag(prefix, localName);
+        } else {
+            sink.writeBytes(entry.endTag);
+        }
+    }
 
-            @Override
-            protected void doFlush() throws IOException {}
+    @Override
+    public final void writeAttributeName(String prefix, String localName) throws IOException {
+        EncodedNameCache.Entry entry = highSurrogate == 0 ? nameCache.get(prefix, localName) : null;
+        if (entry == null) {
+            super.writeAttributeName(prefix, localName);
+        } else {
+            sink.writeBytes(entry.attribute);
+        }
+    }
 
-            @Override
-            protected void doClose() throws IOException {}
-        };
+    @Override
+    public AbstractBase64EncodingOutputStream getBase64EncodingOutputStream() {
+        return sink.getBase64EncodingOutputStream();
     }
 
     @Override
     public final void flushBuffer() throws IOException {
-        out.write(buffer, 0, bufferPosition);
-        bufferPosition = 0;
+        sink.flushBuffer();
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of fixed size {@link ByteBuffer} instances. Allocating direct buffers is expensive, so they
+ * should be recycled instead of being allocated for every document that is serialized. The number
+ * of buffers retained by the pool is bounded.
+ *
+ * <p>Instances of this class are thread safe.
+ */
+final class ByteBufferPool {
+    static final ByteBufferPool DEFAULT = new ByteBufferPool(8192, true, 64);
+
+    private final int bufferSize;
+    private final boolean direct;
+    private final int maxPooledBuffers;
+    private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+
+    /**
+     * Constructor.
+     *
+     * @param bufferSize the size of the buffers
+     * @param direct specifies whether the pool should allocate direct buffers
+     * @param maxPooledBuffers the maximum number of buffers retained by the pool
+     */
+    ByteBufferPool(int bufferSize, boolean direct, int maxPooledBuffers) {
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    /**
+     * Get a buffer from the pool, or allocate a new one if the pool is empty.
+     *
+     * @return a cleared buffer
+     */
+    ByteBuffer allocate() {
+        ByteBuffer buffer;
+        synchronized (buffers) {
+            buffer = buffers.pollFirst();
+        }
+        if (buffer != null) {
+            return buffer;
+        } else if (direct) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        } else {
+            return ByteBuffer.allocate(bufferSize);
+        }
+    }
+
+    /**
+     * Return a buffer to the pool. The buffer is discarded if the pool is full.
+     *
+     * @param buffer the buffer; must have been obtained from {@link #allocate()} and must no longer
+     *     be used by the caller
+     */
+    void recycle(ByteBuffer buffer) {
+        // Cast ensures compatibility with Java 8.
+        ((Buffer) buffer).clear();
+        synchronized (buffers) {
+            if (buffers.size() < maxPooledBuffers) {
+                buffers.addFirst(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import java.io.IOException;
+
+import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
+
+/**
+ * Buffer into which {@link ASCIICompatibleXmlWriter} encodes its output, together with the
+ * destination to which that buffer is written. Implementations encode directly into the buffer that
+ * is eventually passed to the destination, so that the data is not copied again on its way out.
+ */
+abstract class ByteSink {
+    /**
+     * Append a byte to the buffer, writing the buffer to the destination first if it is full.
+     *
+     * @param b the byte
+     * @throws IOException if an I/O error occurs
+     */
+    abstract void writeByte(byte b) throws IOException;
+
+    /**
+     * Append a sequence of bytes to the buffer, writing the buffer to the destination first if it
+     * doesn't have enough space left.
+     *
+     * @param bytes the bytes; must not be longer than the buffer
+     * @throws IOException if an I/O error occurs
+     */
+    abstract void writeBytes(byte[] bytes) throws IOException;
+
+    /**
+     * Append the leading ASCII characters of a range of a string to the buffer.
+     *
+     * @param s the string
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return the index of the first character that is not ASCII, or {@code end} if all characters
+     *     in the range have been written
+     * @throws IOException if an I/O error occurs
+     */
+    abstract int writeASCII(String s, int start, int end) throws IOException;
+
+    /**
+     * Append the leading ASCII characters of a range of a character array to the buffer.
+     *
+     * @param chars the character array
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return the index of the first character that is not ASCII, or {@code end} if all characters
+     *     in the range have been written
+     * @throws IOException if an I/O error occurs
+     */
+    abstract int writeASCII(char[] chars, int start, int end) throws IOException;
+
+    /**
+     * Get a stream that writes base64 encoded data to the buffer.
+     *
+     * @return the stream
+     */
+    abstract AbstractBase64EncodingOutputStream getBase64EncodingOutputStream();
+
+    /**
+     * Write any pending data to the destination.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    abstract void flushBuffer() throws IOException;
+}
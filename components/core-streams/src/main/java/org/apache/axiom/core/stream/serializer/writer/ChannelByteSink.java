@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
+
+/**
+ * {@link ByteSink} that encodes directly into pooled (direct) {@link ByteBuffer}s and writes them
+ * to a {@link WritableByteChannel}. Contrary to wrapping the channel in an output stream, the data
+ * is never staged in a heap array, so that writing to a socket or file channel doesn't copy it a
+ * second time.
+ *
+ * <p>A buffer is only borrowed from the pool while there is pending data; it is returned to the
+ * pool by {@link #flushBuffer()}.
+ */
+final class ChannelByteSink extends ByteSink {
+    private final WritableByteChannel channel;
+    private final ByteBufferPool pool;
+    private ByteBuffer buffer;
+
+    ChannelByteSink(WritableByteChannel channel, ByteBufferPool pool) {
+        this.channel = channel;
+        this.pool = pool;
+    }
+
+    /**
+     * Get the buffer, making sure that it has at least the given amount of space left.
+     *
+     * @param space the required space
+     * @return the buffer
+     * @throws IOException if an I/O error occurs while writing the buffer to the channel
+     */
+    private ByteBuffer getBuffer(int space) throws IOException {
+        if (buffer == null) {
+            buffer = pool.allocate();
+        } else if (buffer.remaining() < space) {
+            writeBuffer();
+        }
+        return buffer;
+    }
+
+    private void writeBuffer() throws IOException {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+        // Cast ensures compatibility with Java 8.
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ((Buffer) buffer).clear();
+    }
+
+    @Override
+    void writeByte(byte b) throws IOException {
+        ByteBuffer buffer = this.buffer;
+        if (buffer == null || !buffer.hasRemaining()) {
+            buffer = getBuffer(1);
+        }
+        buffer.put(b);
+    }
+
+    @Override
+    void writeBytes(byte[] bytes) throws IOException {
+        getBuffer(bytes.length).put(bytes);
+    }
+
+    @Override
+    int writeASCII(String s, int start, int end) throws IOException {
+        int i = start;
+        while (i < end) {
+            ByteBuffer buffer = getBuffer(1);
+            // Copy a run of ASCII characters that fits into the buffer
+            int position = buffer.position();
+            int max = Math.min(end, i + buffer.limit() - position);
+            while (i < max) {
+                char c = s.charAt(i);
+                if (c >= 128) {
+                    break;
+                }
+                buffer.put(position++, (byte) c);
+                i++;
+            }
+            // Cast ensures compatibility with Java 8.
+            ((Buffer) buffer).position(position);
+            if (i < max) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    @Override
+    int writeASCII(char[] chars, int start, int end) throws IOException {
+        int i = start;
+        while (i < end) {
+            ByteBuffer buffer = getBuffer(1);
+            // Copy a run of ASCII characters that fits into the buffer
+            int position = buffer.position();
+            int max = Math.min(end, i + buffer.limit() - position);
+            while (i < max) {
+                char c = chars[i];
+                if (c >= 128) {
+                    break;
+                }
+                buffer.put(position++, (byte) c);
+                i++;
+            }
+            // Cast ensures compatibility with Java 8.
+            ((Buffer) buffer).position(position);
+            if (i < max) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    @Override
+    AbstractBase64EncodingOutputStream getBase64EncodingOutputStream() {
+        // The base64 encoder only supports arrays as destination; write each group of 4 characters
+        // directly to the buffer instead of encoding into a heap array and copying it.
+        return new AbstractBase64EncodingOutputStream() {
+            @Override
+            protected void doWrite(byte[] b) throws IOException {
+                writeBytes(b);
+            }
+
+            @Override
+            protected void flushBuffer() throws IOException {}
+
+            @Override
+            protected void doFlush() throws IOException {}
+
+            @Override
+            protected void doClose() throws IOException {}
+        };
+    }
+
+    @Override
+    void flushBuffer() throws IOException {
+        if (buffer != null) {
+            writeBuffer();
+            pool.recycle(buffer);
+            buffer = null;
+        }
+    }
+}
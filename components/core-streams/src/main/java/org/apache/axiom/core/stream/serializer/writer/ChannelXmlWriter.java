@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * {@link XmlWriter} implementation that encodes characters directly into pooled (direct) {@link
+ * ByteBuffer}s and writes them to a {@link WritableByteChannel}. This avoids copying the data from
+ * a heap array into a direct buffer when writing to a socket or file channel. Any other destination
+ * that consumes {@link ByteBuffer}s can be supported by implementing {@link WritableByteChannel}.
+ * It is only used for encodings that don't have a specialized {@link ASCIICompatibleXmlWriter}
+ * implementation; for these, {@link ChannelByteSink} is used instead.
+ *
+ * <p>A buffer is only borrowed from the pool while there is pending data; it is returned to the
+ * pool by {@link #flushBuffer()}.
+ */
+final class ChannelXmlWriter extends EncoderXmlWriter {
+    private final WritableByteChannel channel;
+    private final ByteBufferPool pool;
+    private ByteBuffer encoderOut;
+
+    ChannelXmlWriter(WritableByteChannel channel, Charset charset, ByteBufferPool pool) {
+        super(charset);
+        this.channel = channel;
+        this.pool = pool;
+    }
+
+    @Override
+    ByteBuffer getEncoderOut() {
+        if (encoderOut == null) {
+            encoderOut = pool.allocate();
+        }
+        return encoderOut;
+    }
+
+    @Override
+    void flushEncoderOut() throws IOException {
+        if (encoderOut == null) {
+            return;
+        }
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+        // Cast ensures compatibility with Java 8.
+        ((Buffer) encoderOut).flip();
+        while (encoderOut.hasRemaining()) {
+            channel.write(encoderOut);
+        }
+        ((Buffer) encoderOut).clear();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        super.flushBuffer();
+        if (encoderOut != null) {
+            pool.recycle(encoderOut);
+            encoderOut = null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Bounded cache of pre-encoded start tags, end tags and attribute names for a given encoding. The
+ * cache is a direct-mapped table indexed by the hash codes of the prefix and local name; a
+ * colliding name simply replaces the existing entry. Entries are immutable, so that the cache can
+ * be shared by all writers using the same encoding without synchronization. Names are usually
+ * interned, in which case the comparison of a cached entry with the requested name is an identity
+ * comparison.
+ */
+final class EncodedNameCache {
+    static final class Entry {
+        final String prefix;
+        final String localName;
+
+        /** The encoded form of {@code <prefix:localName}. */
+        final byte[] startTag;
+
+        /** The encoded form of {@code </prefix:localName>}. */
+        final byte[] endTag;
+
+        /** The encoded form of <code> prefix:localName="</code>. */
+        final byte[] attribute;
+
+        Entry(String prefix, String localName, byte[] name) {
+            this.prefix = prefix;
+            this.localName = localName;
+            startTag = frame("<", name, "");
+            endTag = frame("</", name, ">");
+            attribute = frame(" ", name, "=\"");
+        }
+
+        private static byte[] frame(String before, byte[] name, String after) {
+            byte[] result = new byte[before.length() + name.length + after.length()];
+            int i = 0;
+            for (int j = 0; j < before.length(); j++) {
+                result[i++] = (byte) before.charAt(j);
+            }
+            System.arraycopy(name, 0, result, i, name.length);
+            i += name.length;
+            for (int j = 0; j < after.length(); j++) {
+                result[i++] = (byte) after.charAt(j);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The maximum length (in characters) of the names that are cached. Longer names are written
+     * without being cached.
+     */
+    static final int MAX_NAME_LENGTH = 256;
+
+    private final Charset charset;
+    private final Entry[] entries;
+
+    /**
+     * Constructor.
+     *
+     * @param charset the encoding; must be ASCII compatible
+     * @param size the number of entries; must be a power of two
+     */
+    EncodedNameCache(Charset charset, int size) {
+        this.charset = charset;
+        entries = new Entry[size];
+    }
+
+    /**
+     * Get the cache entry for a given name, creating it if necessary.
+     *
+     * @param prefix the prefix, or an empty string if the name has no prefix
+     * @param localName the local name
+     * @return the cache entry, or {@code null} if the name is too long or can't be encoded (in
+     *     which case the caller is expected to write the name character by character so that the
+     *     error is reported in the usual way)
+     */
+    Entry get(String prefix, String localName) {
+        int hash = 31 * prefix.hashCode() + localName.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (entries.length - 1);
+        Entry entry = entries[index];
+        if (entry != null && entry.localName.equals(localName) && entry.prefix.equals(prefix)) {
+            return entry;
+        }
+        if (prefix.length() + localName.length() >= MAX_NAME_LENGTH) {
+            return null;
+        }
+        byte[] name = encode(prefix.isEmpty() ? localName : prefix + ":" + localName);
+        if (name == null) {
+            return null;
+        }
+        entry = new Entry(prefix, localName, name);
+        entries[index] = entry;
+        return entry;
+    }
+
+    private byte[] encode(String name) {
+        ByteBuffer bb;
+        try {
+            bb =
+                    charset.newEncoder()
+                            .onMalformedInput(CodingErrorAction.REPORT)
+                            .onUnmappableCharacter(CodingErrorAction.REPORT)
+                            .encode(CharBuffer.wrap(name));
+        } catch (CharacterCodingException ex) {
+            return null;
+        }
+        byte[] result = new byte[bb.remaining()];
+        bb.get(result);
+        return result;
+    }
+}
@@ -20,17 +20,27 @@ package org.apache.axiom.core.stream.serializer.writer;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 final class Latin1XmlWriter extends ASCIICompatibleXmlWriter {
+    private static final EncodedNameCache asciiNameCache =
+            new EncodedNameCache(StandardCharsets.US_ASCII, 1024);
+    private static final EncodedNameCache latin1NameCache =
+            new EncodedNameCache(StandardCharsets.ISO_8859_1, 1024);
+
     private final int maxChar;
     private UnmappableCharacterHandler unmappableCharacterHandler =
             UnmappableCharacterHandler.THROW_EXCEPTION;
 
-    Latin1XmlWriter(OutputStream out, int maxChar) {
-        super(out);
+    Latin1XmlWriter(ByteSink sink, int maxChar) {
+        super(sink, maxChar == 127 ? asciiNameCache : latin1NameCache);
         this.maxChar = maxChar;
     }
 
+    Latin1XmlWriter(OutputStream out, int maxChar) {
+        this(new OutputStreamByteSink(out), maxChar);
+    }
+
     @Override
     public void setUnmappableCharacterHandler(UnmappableCharacterHandler unmappableCharacterHandler)
             throws IOException {
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
+
+/**
+ * {@link ByteSink} that accumulates data in a heap array and writes it to an {@link OutputStream}.
+ */
+final class OutputStreamByteSink extends ByteSink {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[4096];
+    private int bufferPosition;
+
+    OutputStreamByteSink(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    void writeByte(byte b) throws IOException {
+        if (bufferPosition == buffer.length) {
+            flushBuffer();
+        }
+        buffer[bufferPosition++] = b;
+    }
+
+    @Override
+    void writeBytes(byte[] bytes) throws IOException {
+        if (buffer.length - bufferPosition < bytes.length) {
+            flushBuffer();
+        }
+        System.arraycopy(bytes, 0, buffer, bufferPosition, bytes.length);
+        bufferPosition += bytes.length;
+    }
+
+    /**
+     * Runs of ASCII characters are copied to the buffer in bulk using {@link String#getBytes(int,
+     * int, byte[], int)}, which simply copies the internal representation of the string if it is
+     * stored in compact form.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    int writeASCII(String s, int start, int end) throws IOException {
+        final byte[] buffer = this.buffer;
+        int i = start;
+        while (i < end) {
+            if (bufferPosition == buffer.length) {
+                flushBuffer();
+            }
+            // Look for a run of ASCII characters that fits into the buffer
+            int max = Math.min(end, i + buffer.length - bufferPosition);
+            int runEnd = i;
+            while (runEnd < max && s.charAt(runEnd) < 128) {
+                runEnd++;
+            }
+            if (runEnd > i) {
+                s.getBytes(i, runEnd, buffer, bufferPosition);
+                bufferPosition += runEnd - i;
+                i = runEnd;
+            }
+            if (i < max) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    @Override
+    int writeASCII(char[] chars, int start, int end) throws IOException {
+        final byte[] buffer = this.buffer;
+        int i = start;
+        while (i < end) {
+            if (bufferPosition == buffer.length) {
+                flushBuffer();
+            }
+            // Copy a run of ASCII characters that fits into the buffer
+            int max = Math.min(end, i + buffer.length - bufferPosition);
+            int position = bufferPosition;
+            while (i < max) {
+                char c = chars[i];
+                if (c >= 128) {
+                    break;
+                }
+                buffer[position++] = (byte) c;
+                i++;
+            }
+            bufferPosition = position;
+            if (i < max) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    @Override
+    AbstractBase64EncodingOutputStream getBase64EncodingOutputStream() {
+        return new AbstractBase64EncodingOutputStream() {
+            @Override
+            protected void doWrite(byte[] b) throws IOException {
+                writeBytes(b);
+            }
+
+            @Override
+            protected void doWrite(byte[] b, int off, int len) throws IOException {
+                while (len > 0) {
+                    if (buffer.length - bufferPosition < 4) {
+                        OutputStreamByteSink.this.flushBuffer();
+                    }
+                    int blockLength = Math.min(len, (buffer.length - bufferPosition) / 4 * 3);
+                    bufferPosition += encode(b, off, blockLength, buffer, bufferPosition);
+                    off += blockLength;
+                    len -= blockLength;
+                }
+            }
+
+            @Override
+            protected void flushBuffer() throws IOException {}
+
+            @Override
+            protected void doFlush() throws IOException {}
+
+            @Override
+            protected void doClose() throws IOException {}
+        };
+    }
+
+    @Override
+    void flushBuffer() throws IOException {
+        out.write(buffer, 0, bufferPosition);
+        bufferPosition = 0;
+    }
+}
@@ -20,10 +20,18 @@ package org.apache.axiom.core.stream.serializer.writer;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 final class UTF8XmlWriter extends ASCIICompatibleXmlWriter {
+    private static final EncodedNameCache nameCache =
+            new EncodedNameCache(StandardCharsets.UTF_8, 1024);
+
+    UTF8XmlWriter(ByteSink sink) {
+        super(sink, nameCache);
+    }
+
     UTF8XmlWriter(OutputStream out) {
-        super(out);
+        this(new OutputStreamByteSink(out));
     }
 
     @Override
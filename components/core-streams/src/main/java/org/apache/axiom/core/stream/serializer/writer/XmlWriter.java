@@ -20,22 +20,47 @@ package org.apache.axiom.core.stream.serializer.writer;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.util.function.Supplier;
 
 import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
 
 public abstract class XmlWriter {
     public static XmlWriter create(OutputStream out, String encoding) {
         Charset charset = Charset.forName(encoding);
+        XmlWriter writer =
+                createASCIICompatibleXmlWriter(charset, () -> new OutputStreamByteSink(out));
+        return writer != null ? writer : new OutputStreamXmlWriter(out, charset);
+    }
+
+    /**
+     * Create a writer that writes to the given channel using pooled direct buffers. The data is
+     * encoded directly into these buffers. The channel must be in blocking mode.
+     *
+     * @param channel the channel to write to
+     * @param encoding the name of the encoding
+     * @return the writer
+     */
+    public static XmlWriter create(WritableByteChannel channel, String encoding) {
+        Charset charset = Charset.forName(encoding);
+        ByteBufferPool pool = ByteBufferPool.DEFAULT;
+        XmlWriter writer =
+                createASCIICompatibleXmlWriter(charset, () -> new ChannelByteSink(channel, pool));
+        return writer != null ? writer : new ChannelXmlWriter(channel, charset, pool);
+    }
+
+    private static XmlWriter createASCIICompatibleXmlWriter(
+            Charset charset, Supplier<ByteSink> sinkFactory) {
         String name = charset.name();
         if (name.equals("UTF-8")) {
-            return new UTF8XmlWriter(out);
+            return new UTF8XmlWriter(sinkFactory.get());
         } else if (name.equals("US-ASCII")) {
-            return new Latin1XmlWriter(out, 127);
+            return new Latin1XmlWriter(sinkFactory.get(), 127);
         } else if (name.equals("ISO-8859-1")) {
-            return new Latin1XmlWriter(out, 255);
+            return new Latin1XmlWriter(sinkFactory.get(), 255);
         } else {
-            return new OutputStreamXmlWriter(out, charset);
+            return null;
         }
     }
 
@@ -48,6 +73,52 @@ public abstract class XmlWriter {
 
     public abstract void write(char chars[], int start, int length) throws IOException;
 
+    /**
+     * Write the beginning of a start tag, i.e. {@code <} followed by the qualified name.
+     *
+     * @param prefix the prefix, or an empty string if the name has no prefix
+     * @param localName the local name
+     * @throws IOException
+     */
+    public void writeStartTag(String prefix, String localName) throws IOException {
+        write('<');
+        writeQName(prefix, localName);
+    }
+
+    /**
+     * Write an end tag, i.e. {@code </}, the qualified name and {@code >}.
+     *
+     * @param prefix the prefix, or an empty string if the name has no prefix
+     * @param localName the local name
+     * @throws IOException
+     */
+    public void writeEndTag(String prefix, String localName) throws IOException {
+        write("</");
+        writeQName(prefix, localName);
+        write('>');
+    }
+
+    /**
+     * Write the beginning of an attribute, i.e. a space, the qualified name and <code>="</code>.
+     *
+     * @param prefix the prefix, or an empty string if the name has no prefix
+     * @param localName the local name
+     * @throws IOException
+     */
+    public void writeAttributeName(String prefix, String localName) throws IOException {
+        write(' ');
+        writeQName(prefix, localName);
+        write("=\"");
+    }
+
+    private void writeQName(String prefix, String localName) throws IOException {
+        if (!prefix.isEmpty()) {
+            write(prefix);
+            write(':');
+        }
+        write(localName);
+    }
+
     public abstract AbstractBase64EncodingOutputStream getBase64EncodingOutputStream();
 
     /**
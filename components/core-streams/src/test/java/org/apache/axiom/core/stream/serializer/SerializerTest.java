@@ -21,9 +21,12 @@ package org.apache.axiom.core.stream.serializer;
 import static com.google.common.truth.Truth.assertThat;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 
+import org.apache.axiom.core.stream.CharacterData;
+import org.apache.axiom.core.stream.CharacterDataSink;
 import org.apache.axiom.core.stream.StreamException;
 import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.io.output.NullWriter;
@@ -196,4 +199,64 @@ public class SerializerTest {
             assertThat(sw.toString()).matches("xxx]]&gt;yyy");
         }
     }
+
+    @Test
+    public void testSpecialCharacterAtEveryPosition() throws Exception {
+        String[][] cases = {
+            {"<", "&lt;"},
+            {"&", "&amp;"},
+            {"\r", "&#xd;"},
+            {"\u0001", "&#x1;"},
+            {"\u0085", "&#x85;"},
+            {"\u2028", "&#x2028;"},
+            {"]]>", "]]&gt;"},
+            {"\n", "\n"},
+            {"\u00e9", "\u00e9"},
+            {"\"", "\""}
+        };
+        for (String[] c : cases) {
+            for (int i = 0; i < 20; i++) {
+                String prefix = "abcdefghijklmnopqrst".substring(0, i);
+                StringWriter sw = new StringWriter();
+                Serializer handler = new Serializer(sw);
+                handler.startFragment();
+                handler.processCharacterData(prefix + c[0] + "xyz0123456789", false);
+                handler.completed();
+                assertThat(sw.toString()).isEqualTo(prefix + c[1] + "xyz0123456789");
+            }
+        }
+    }
+
+    @Test
+    public void testLongCleanRunFollowedByCharacterWithoutReplacement() throws Exception {
+        for (String special : new String[] {"\n", "]", ">", "\"", "\u00e9"}) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                sb.append('a');
+            }
+            sb.append(special).append('b');
+            char[] chars = sb.toString().toCharArray();
+            StringWriter sw = new StringWriter();
+            Serializer handler = new Serializer(sw);
+            handler.startFragment();
+            handler.startElement("", "test", "");
+            handler.attributesCompleted();
+            handler.processCharacterData(
+                    new CharacterData() {
+                        @Override
+                        public void writeTo(CharacterDataSink sink) throws IOException {
+                            sink.getWriter().write(chars, 0, chars.length);
+                        }
+
+                        @Override
+                        public void appendTo(StringBuilder buffer) {
+                            buffer.append(chars);
+                        }
+                    },
+                    false);
+            handler.endElement();
+            handler.completed();
+            assertThat(sw.toString()).isEqualTo("<test>" + sb + "</test>");
+        }
+    }
 }
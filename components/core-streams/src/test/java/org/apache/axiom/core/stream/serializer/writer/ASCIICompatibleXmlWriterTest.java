@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
+
+import org.junit.Test;
+
+public class ASCIICompatibleXmlWriterTest {
+    @Test
+    public void testWriteStringWithASCIIRunsLargerThanBuffer() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append((char) ('a' + i % 26));
+            if (i % 3001 == 0) {
+                sb.append("\u00e9\u20ac\ud83d\ude00");
+            }
+        }
+        String s = sb.toString();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = new UTF8XmlWriter(baos);
+        writer.write('x');
+        writer.write(s);
+        writer.flushBuffer();
+        assertThat(baos.toByteArray()).isEqualTo(("x" + s).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteStringWithSurrogatePairSplitAcrossCalls() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = new UTF8XmlWriter(baos);
+        writer.write("abc\ud83d");
+        writer.write("\ude00def");
+        writer.flushBuffer();
+        assertThat(baos.toString("UTF-8")).isEqualTo("abc\ud83d\ude00def");
+    }
+
+    @Test
+    public void testWriteCharArrayWithASCIIRunsLargerThanBuffer() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append((char) ('a' + i % 26));
+            if (i % 3001 == 0) {
+                sb.append("\u00e9\u20ac\ud83d\ude00");
+            }
+        }
+        String s = sb.toString();
+        char[] chars = ("--" + s + "--").toCharArray();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = new UTF8XmlWriter(baos);
+        writer.write('x');
+        writer.write(chars, 2, s.length());
+        writer.flushBuffer();
+        assertThat(baos.toByteArray()).isEqualTo(("x" + s).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteCharArrayWithSurrogatePairSplitAcrossCalls() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = new UTF8XmlWriter(baos);
+        char[] chars = "abc\ud83d\ude00def".toCharArray();
+        writer.write(chars, 0, 4);
+        writer.write(chars, 4, 4);
+        writer.flushBuffer();
+        assertThat(baos.toString("UTF-8")).isEqualTo("abc\ud83d\ude00def");
+    }
+
+    @Test
+    public void testWriteStringLatin1() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = new Latin1XmlWriter(baos, 255);
+        writer.write("caf\u00e9 cr\u00e8me");
+        writer.flushBuffer();
+        assertThat(baos.toString("iso-8859-1")).isEqualTo("caf\u00e9 cr\u00e8me");
+    }
+
+    @Test
+    public void testBase64() throws Exception {
+        byte[] data = new byte[10000];
+        new Random(1234).nextBytes(data);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = new UTF8XmlWriter(baos);
+        writer.write("<a>");
+        AbstractBase64EncodingOutputStream out = writer.getBase64EncodingOutputStream();
+        out.write(data, 0, 1);
+        out.write(data, 1, 9000);
+        out.write(data, 9001, data.length - 9001);
+        out.complete();
+        writer.write("</a>");
+        writer.flushBuffer();
+        assertThat(baos.toString("ascii"))
+                .isEqualTo("<a>" + Base64.getEncoder().encodeToString(data) + "</a>");
+    }
+}
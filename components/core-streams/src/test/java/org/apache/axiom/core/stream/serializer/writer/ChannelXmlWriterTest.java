@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
+import org.junit.Test;
+
+public class ChannelXmlWriterTest {
+    @Test
+    public void testWriteLargerThanBuffer() throws Exception {
+        ByteBufferPool pool = new ByteBufferPool(64, true, 1);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer =
+                new ChannelXmlWriter(Channels.newChannel(baos), StandardCharsets.UTF_8, pool);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            String s = "\u00e9t\u00e9 " + i;
+            writer.write(s);
+            expected.append(s);
+        }
+        writer.flushBuffer();
+        assertThat(baos.toString("UTF-8")).isEqualTo(expected.toString());
+    }
+
+    @Test
+    public void testBufferRecycled() throws Exception {
+        ByteBufferPool pool = new ByteBufferPool(64, true, 1);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer =
+                new ChannelXmlWriter(Channels.newChannel(baos), StandardCharsets.UTF_8, pool);
+        writer.write("test");
+        writer.flushBuffer();
+        ByteBuffer buffer = pool.allocate();
+        assertThat(buffer.isDirect()).isTrue();
+        assertThat(buffer.position()).isEqualTo(0);
+        pool.recycle(buffer);
+        writer.write("more");
+        writer.flushBuffer();
+        assertThat(pool.allocate()).isSameInstanceAs(buffer);
+        assertThat(baos.toString("UTF-8")).isEqualTo("testmore");
+    }
+
+    @Test
+    public void testUnmappableCharacterToCharacterReference() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = XmlWriter.create(Channels.newChannel(baos), "iso-8859-1");
+        writer.setUnmappableCharacterHandler(
+                UnmappableCharacterHandler.CONVERT_TO_CHARACTER_REFERENCE);
+        writer.write("abc\u20ACdef");
+        writer.flushBuffer();
+        assertThat(baos.toString("iso-8859-1")).isEqualTo("abc&#x20ac;def");
+    }
+
+    @Test
+    public void testCreateUsesASCIICompatibleXmlWriter() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = XmlWriter.create(Channels.newChannel(baos), "UTF-8");
+        assertThat(writer).isInstanceOf(UTF8XmlWriter.class);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            String s = "\u00e9t\u00e9 " + i;
+            writer.write(s);
+            expected.append(s);
+        }
+        writer.flushBuffer();
+        assertThat(baos.toString("UTF-8")).isEqualTo(expected.toString());
+    }
+
+    private static void writeTestContent(XmlWriter writer) throws Exception {
+        writer.writeStartTag("p", "root");
+        writer.writeAttributeName("", "attr");
+        writer.write("caf\u00e9\"");
+        writer.write('>');
+        char[] chars = new char[3000];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = i % 500 == 0 ? '\u20ac' : (char) ('a' + i % 26);
+        }
+        for (int i = 0; i < 10; i++) {
+            writer.write(chars, 1, chars.length - 1);
+            writer.write("text \ud83d\ude00 " + i);
+        }
+        byte[] data = new byte[5000];
+        new Random(1234).nextBytes(data);
+        AbstractBase64EncodingOutputStream out = writer.getBase64EncodingOutputStream();
+        out.write(data);
+        out.complete();
+        writer.writeEndTag("p", "root");
+    }
+
+    @Test
+    public void testChannelByteSink() throws Exception {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        XmlWriter writer = new UTF8XmlWriter(expected);
+        writeTestContent(writer);
+        writer.flushBuffer();
+
+        ByteBufferPool pool = new ByteBufferPool(64, true, 1);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(actual);
+        List<ByteBuffer> buffers = new ArrayList<>();
+        WritableByteChannel channel =
+                new WritableByteChannel() {
+                    @Override
+                    public int write(ByteBuffer src) throws IOException {
+                        buffers.add(src);
+                        return target.write(src);
+                    }
+
+                    @Override
+                    public boolean isOpen() {
+                        return true;
+                    }
+
+                    @Override
+                    public void close() {}
+                };
+        writer = new UTF8XmlWriter(new ChannelByteSink(channel, pool));
+        writeTestContent(writer);
+        writer.flushBuffer();
+        assertThat(actual.toByteArray()).isEqualTo(expected.toByteArray());
+        // The data must be encoded directly into the pooled direct buffer
+        assertThat(buffers).isNotEmpty();
+        ByteBuffer buffer = buffers.get(0);
+        assertThat(buffer.isDirect()).isTrue();
+        for (ByteBuffer b : buffers) {
+            assertThat(b).isSameInstanceAs(buffer);
+        }
+        assertThat(pool.allocate()).isSameInstanceAs(buffer);
+    }
+
+    @Test
+    public void testChannelByteSinkNonBlocking() throws Exception {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            XmlWriter writer = XmlWriter.create(pipe.sink(), "UTF-8");
+            writer.write("test");
+            assertThrows(IllegalBlockingModeException.class, writer::flushBuffer);
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+}
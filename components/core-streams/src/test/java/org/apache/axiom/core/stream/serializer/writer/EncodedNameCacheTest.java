@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer.writer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class EncodedNameCacheTest {
+    @Test
+    public void testEntry() {
+        EncodedNameCache cache = new EncodedNameCache(StandardCharsets.UTF_8, 16);
+        EncodedNameCache.Entry entry = cache.get("p", "\u00e9l\u00e9ment");
+        assertThat(new String(entry.startTag, StandardCharsets.UTF_8))
+                .isEqualTo("<p:\u00e9l\u00e9ment");
+        assertThat(new String(entry.endTag, StandardCharsets.UTF_8))
+                .isEqualTo("</p:\u00e9l\u00e9ment>");
+        assertThat(new String(entry.attribute, StandardCharsets.UTF_8))
+                .isEqualTo(" p:\u00e9l\u00e9ment=\"");
+        assertThat(cache.get("p", "\u00e9l\u00e9ment")).isSameInstanceAs(entry);
+        assertThat(new String(cache.get("", "test").startTag, StandardCharsets.UTF_8))
+                .isEqualTo("<test");
+    }
+
+    @Test
+    public void testUnmappableName() {
+        EncodedNameCache cache = new EncodedNameCache(StandardCharsets.US_ASCII, 16);
+        assertThat(cache.get("", "\u00e9l\u00e9ment")).isNull();
+    }
+
+    @Test
+    public void testUnpairedSurrogate() {
+        EncodedNameCache cache = new EncodedNameCache(StandardCharsets.UTF_8, 16);
+        assertThat(cache.get("", "a\ud800")).isNull();
+    }
+
+    @Test
+    public void testWriteTags() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = XmlWriter.create(baos, "UTF-8");
+        for (int i = 0; i < 2; i++) {
+            writer.writeStartTag("p", "root");
+            writer.writeAttributeName("", "attr");
+            writer.write("value\">");
+            writer.writeEndTag("p", "root");
+        }
+        writer.flushBuffer();
+        assertThat(baos.toString("UTF-8"))
+                .isEqualTo("<p:root attr=\"value\"></p:root><p:root attr=\"value\"></p:root>");
+    }
+}
@@ -36,4 +36,19 @@ public class OutputStreamXmlWriterTest {
         writer.flushBuffer();
         assertThat(baos.toString("iso-8859-1")).isEqualTo("abc&#x20ac;def");
     }
+
+    @Test
+    public void testWriteLargerThanBuffer() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmlWriter writer = new OutputStreamXmlWriter(baos, StandardCharsets.UTF_16BE);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            String s = "test " + i;
+            writer.write(s);
+            writer.write(s.toCharArray(), 0, s.length());
+            expected.append(s).append(s);
+        }
+        writer.flushBuffer();
+        assertThat(baos.toString("UTF-16BE")).isEqualTo(expected.toString());
+    }
 }
@@ -19,15 +19,64 @@
 package org.apache.axiom.util.io;
 
 import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.axiom.ext.io.ReadFromSupport;
 import org.apache.axiom.ext.io.StreamCopyException;
 
 public final class IOUtils {
+    /**
+     * The maximum number of bytes transferred by a single call to
+     * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}.
+     */
+    private static final long TRANSFER_CHUNK_SIZE = 1024 * 1024;
+
     private IOUtils() {}
+
+    /**
+     * {@link ReadableByteChannel} wrapper that records the last exception thrown by the
+     * {@link ReadableByteChannel#read(ByteBuffer)} method of the underlying channel.
+     */
+    private static final class ReadTrackingChannel implements ReadableByteChannel {
+        private final ReadableByteChannel parent;
+        IOException exception;
+
+        ReadTrackingChannel(ReadableByteChannel parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            try {
+                return parent.read(dst);
+            } catch (IOException ex) {
+                exception = ex;
+                throw ex;
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return parent.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            parent.close();
+        }
+    }
     
     /**
      * Copy bytes between streams. This method supports the {@link ReadFromSupport} interface. It
@@ -71,4 +120,205 @@ public final class IOUtils {
             return read;
         }
     }
+
+    /**
+     * Get a {@link WritableByteChannel} that writes directly to the destination of the given
+     * output stream. Such a channel is available for plain {@link FileOutputStream} instances (but
+     * not for subclasses, which may override the <code>write</code> methods) and for output
+     * streams that implement {@link WritableByteChannel} themselves.
+     * 
+     * @param out
+     *            the output stream
+     * @return the channel, or <code>null</code> if the output stream doesn't give access to a
+     *         channel
+     */
+    public static WritableByteChannel getChannel(OutputStream out) {
+        if (out.getClass() == FileOutputStream.class) {
+            return ((FileOutputStream)out).getChannel();
+        } else if (out instanceof WritableByteChannel) {
+            return (WritableByteChannel)out;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Copy the content of a file to an output stream. If the output stream gives access to a
+     * channel (see {@link #getChannel(OutputStream)}), then the data is transferred using
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, allowing the operating
+     * system to copy the data without passing it through user space. Otherwise this method falls
+     * back to {@link #copy(InputStream, OutputStream, long)}. The method will not close the
+     * output stream.
+     * 
+     * @param file
+     *            the file to read
+     * @param out
+     *            the stream to write bytes to
+     * @return the number of bytes copied
+     * @throws StreamCopyException
+     *             if an I/O error occurs; if the data is transferred using a channel, errors that
+     *             occur during the transfer are reported as write errors
+     */
+    public static long copy(File file, OutputStream out) throws StreamCopyException {
+        WritableByteChannel channel = getChannel(out);
+        if (channel == null) {
+            InputStream in;
+            try {
+                in = new FileInputStream(file);
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+            try {
+                return copy(in, out, -1);
+            } finally {
+                try {
+                    in.close();
+                } catch (IOException ex) {
+                    throw new StreamCopyException(StreamCopyException.READ, ex);
+                }
+            }
+        } else {
+            return copy(file, channel);
+        }
+    }
+
+    /**
+     * Copy the content of a file to a channel using
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. The method will not close
+     * the channel.
+     * 
+     * @param file
+     *            the file to read
+     * @param out
+     *            the channel to write bytes to; it must be in blocking mode
+     * @return the number of bytes copied
+     * @throws StreamCopyException
+     *             if an I/O error occurs; errors that occur during the transfer are reported as
+     *             write errors
+     * @throws IllegalBlockingModeException
+     *             if the channel is a {@link SelectableChannel} in non-blocking mode
+     */
+    public static long copy(File file, WritableByteChannel out) throws StreamCopyException {
+        FileChannel in;
+        long size;
+        try {
+            in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            size = in.size();
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.READ, ex);
+        }
+        try {
+            return transferTo(in, 0, size, out);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+        }
+    }
+
+    /**
+     * Read data from a channel and write it to a file using
+     * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}, until the end of the
+     * channel is reached. The file is created if it doesn't exist and truncated otherwise. The
+     * method will not close the source channel.
+     * 
+     * @param in
+     *            the channel to read from; it must be in blocking mode
+     * @param file
+     *            the file to write to
+     * @return the number of bytes copied
+     * @throws StreamCopyException
+     *             if an I/O error occurs; if the source is a {@link FileChannel}, errors that occur
+     *             during the transfer are reported as read errors because
+     *             {@link FileChannel#transferFrom(ReadableByteChannel, long, long)} doesn't allow
+     *             to distinguish between read and write errors in that case
+     * @throws IllegalBlockingModeException
+     *             if the source is a {@link SelectableChannel} in non-blocking mode
+     */
+    public static long copy(ReadableByteChannel in, File file) throws StreamCopyException {
+        if (in instanceof SelectableChannel && !((SelectableChannel)in).isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+        FileChannel out;
+        try {
+            out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+        // A file channel may be transferred without invoking its read method. For other channels,
+        // transferFrom reads into a temporary buffer anyway, and wrapping the channel allows us to
+        // distinguish read errors from write errors.
+        ReadTrackingChannel src = in instanceof FileChannel ? null : new ReadTrackingChannel(in);
+        try {
+            long position = 0;
+            long c;
+            try {
+                // The source is in blocking mode; therefore transferFrom returns a short count
+                // only if the end of the source is reached.
+                while ((c = out.transferFrom(src == null ? in : src, position, TRANSFER_CHUNK_SIZE)) > 0) {
+                    position += c;
+                }
+            } catch (IOException ex) {
+                throw new StreamCopyException(src == null || src.exception == ex
+                        ? StreamCopyException.READ : StreamCopyException.WRITE, ex);
+            }
+            return position;
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.WRITE, ex);
+            }
+        }
+    }
+
+    /**
+     * Transfer a region of a file to a channel using
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. In contrast to that method,
+     * this method repeats the transfer until all bytes have been transferred or the end of the
+     * file is reached.
+     * 
+     * @param in
+     *            the file channel to read from
+     * @param position
+     *            the position in the file at which the transfer is to begin
+     * @param count
+     *            the maximum number of bytes to transfer
+     * @param out
+     *            the target channel; it must be in blocking mode
+     * @return the number of bytes transferred
+     * @throws StreamCopyException
+     *             if an I/O error occurs; these errors are reported as write errors because
+     *             {@link FileChannel#transferTo(long, long, WritableByteChannel)} doesn't allow to
+     *             distinguish between read and write errors
+     * @throws IllegalBlockingModeException
+     *             if the target is a {@link SelectableChannel} in non-blocking mode
+     */
+    public static long transferTo(FileChannel in, long position, long count, WritableByteChannel out)
+            throws StreamCopyException {
+        if (out instanceof SelectableChannel && !((SelectableChannel)out).isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+        long transferred = 0;
+        try {
+            while (transferred < count) {
+                long c = in.transferTo(position + transferred, count - transferred, out);
+                if (c <= 0) {
+                    // A blocking channel accepts all the data; therefore this only happens at the
+                    // end of the file.
+                    if (position + transferred >= in.size()) {
+                        break;
+                    }
+                    throw new IOException("Target channel didn't accept any data");
+                }
+                transferred += c;
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+        return transferred;
+    }
 }
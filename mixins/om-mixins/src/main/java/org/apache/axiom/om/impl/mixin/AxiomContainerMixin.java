@@ -21,6 +21,8 @@ package org.apache.axiom.om.impl.mixin;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 
 import javax.xml.namespace.QName;
@@ -399,6 +401,26 @@ public abstract class AxiomContainerMixin implements AxiomContainer {
         serializeAndSurfaceIOException(new Serializer(writer), null, format, cache);
     }
 
+    @Override
+    public final void serialize(WritableByteChannel channel, boolean cache) throws IOException {
+        serialize(channel, new OMOutputFormat(), cache);
+    }
+
+    @Override
+    public final void serialize(WritableByteChannel channel, OMOutputFormat format, boolean cache)
+            throws IOException {
+        if (format.isOptimized()) {
+            // The MIME parts are written to an OutputStream anyway
+            serialize(Channels.newOutputStream(channel), format, cache);
+            return;
+        }
+        String encoding = format.getCharSetEncoding();
+        if (encoding == null) { // Default encoding is UTF-8
+            format.setCharSetEncoding(encoding = OMOutputFormat.DEFAULT_CHAR_SET_ENCODING);
+        }
+        serializeAndSurfaceIOException(new Serializer(channel, encoding), null, format, cache);
+    }
+
     @Override
     public final void serialize(OutputStream output) throws XMLStreamException {
         serialize(output, new OMOutputFormat());
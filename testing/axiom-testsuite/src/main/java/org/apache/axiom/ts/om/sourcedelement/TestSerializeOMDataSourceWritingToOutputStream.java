@@ -37,6 +37,7 @@ import org.apache.axiom.om.ds.AbstractPushOMDataSource;
 import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
 import org.apache.axiom.ts.AxiomTestCase;
 import org.apache.axiom.ts.dimension.serialization.SerializationStrategy;
+import org.apache.axiom.ts.dimension.serialization.SerializeToChannel;
 import org.apache.axiom.ts.dimension.serialization.SerializeToOutputStream;
 
 /**
@@ -117,6 +118,8 @@ public class TestSerializeOMDataSourceWritingToOutputStream extends AxiomTestCas
                                 ? "<root><test xmlns='urn:test'/></root>"
                                 : "<test xmlns='urn:test'/>");
         assertThat(ds.isOutputStreamUsed())
-                .isEqualTo(serializationStrategy instanceof SerializeToOutputStream);
+                .isEqualTo(
+                        serializationStrategy instanceof SerializeToOutputStream
+                                || serializationStrategy instanceof SerializeToChannel);
     }
 }